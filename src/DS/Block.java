@@ -2,148 +2,402 @@ package DS;
 
 import Interface.IByteOperation;
 import Interface.IRecord;
+import Interface.IRecordPredicate;
 
-import java.io.*;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
+// blok drzi surove bajty stranky, zaznamy sa dekoduju az pri prvom pristupe
+// zaznamy s pevnou dlzkou su v stranke za sebou, zaznamy s premenlivou dlzkou su v stranke so slotmi -
+// adresar slotov (posun, dlzka) rastie od hlavicky a bajty zaznamov od konca stranky
 public class Block<T extends IRecord<T>> implements IByteOperation<T> {
+    public static final int NO_BLOCK = -1;
+    // validCount, nasledujuci a predchadzajuci blok v zretazenom zozname volnych blokov
+    private static final int HEADER_SIZE = Integer.BYTES * 3;
+    private static final int NEXT_OFFSET = Integer.BYTES;
+    private static final int PREVIOUS_OFFSET = Integer.BYTES * 2;
+    // stranka so slotmi ma v hlavicke navyse zaciatok dat a pocet volnych bajtov
+    private static final int DATA_START_OFFSET = Integer.BYTES * 3;
+    private static final int FREE_BYTES_OFFSET = Integer.BYTES * 4;
+    private static final int SLOTTED_HEADER_SIZE = Integer.BYTES * 5;
+    private static final int SLOT_SIZE = Short.BYTES * 2;
+    private static final int MAX_SLOTTED_BLOCK_SIZE = 0x10000;
+
+    // konstruktor bez parametrov sa vyhlada raz pre kazdu triedu zaznamu, dalej sa vola bez reflexie
+    private static final ClassValue<MethodHandle> CONSTRUCTORS = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            try {
+                return MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalStateException("Cannot instantiate record type " + type.getName(), e);
+            }
+        }
+    };
+
     private int validCount;
-    private final IRecord<T>[] records;
+    private IRecord<T>[] records;
     private final int blockFactor;
     private final Class<T> recordType;
+    private final T prototype;
     private final int recordSize;
+    private final boolean slotted;
     private final int blockSize;
+    private final ByteBuffer page;
+    private ByteBuffer keyProbe;
+    private long[] slotOrder;
+    private long pageLsn;
 
     public Block(Class<T> recordType, int sizeOfBlock) {
+        this(recordType, sizeOfBlock, ByteBuffer.allocate(sizeOfBlock));
+    }
+
+    //blok nad strankou z poolu priamych bufferov heap filu
+    Block(Class<T> recordType, int sizeOfBlock, ByteBuffer page) {
+        if (page.capacity() != sizeOfBlock) {
+            throw new IllegalArgumentException("Page has " + page.capacity() + " bytes, block needs " + sizeOfBlock);
+        }
         this.recordType = recordType;
-        this.recordSize = this.getSizeOfRecord();
+        this.prototype = newRecord(recordType);
+        this.recordSize = this.prototype.getSize();
+        this.slotted = this.prototype.hasVariableLength();
         this.blockSize = sizeOfBlock;
-        int actualSizeOfBlock = this.blockSize - Integer.BYTES;
-        this.blockFactor = actualSizeOfBlock / this.recordSize;
-        this.records = new IRecord[this.blockFactor];
-        this.validCount = 0;
+        if (this.slotted) {
+            if (this.blockSize > MAX_SLOTTED_BLOCK_SIZE) {
+                throw new IllegalArgumentException("Slotted blocks can have at most " + MAX_SLOTTED_BLOCK_SIZE + " bytes");
+            }
+            // kolko zaznamov najvacsej velkosti sa zmesti vzdy, skutocny pocet zavisi od ich dlzok
+            this.blockFactor = Math.max(0, this.blockSize - SLOTTED_HEADER_SIZE) / (SLOT_SIZE + this.recordSize);
+        } else {
+            this.blockFactor = Math.max(0, this.blockSize - HEADER_SIZE) / this.recordSize;
+        }
+        this.records = newRecordArray(this.blockFactor);
+        this.page = page;
+        this.clear();
+    }
+
+    //pole blokov pre buffer manazery - genericke pole sa neda vytvorit bez pretypovania
+    @SuppressWarnings("unchecked")
+    static <T extends IRecord<T>> Block<T>[] newArray(int length) {
+        return (Block<T>[]) new Block<?>[length];
+    }
+
+    //pole pre dekodovane zaznamy stranky
+    @SuppressWarnings("unchecked")
+    private static <T extends IRecord<T>> IRecord<T>[] newRecordArray(int length) {
+        return (IRecord<T>[]) new IRecord<?>[length];
+    }
+
+    public T createRecord() {
+        return newRecord(this.recordType);
     }
 
-    private int getSizeOfRecord() {
+    //konstruktor vola tuto metodu namiesto createRecord, ktoru moze podtrieda prekryt
+    private static <T> T newRecord(Class<T> recordType) {
         try {
-            return this.recordType.getDeclaredConstructor().newInstance().getSize();
-        } catch (InstantiationException e) {
-            throw new IllegalStateException("Cannot instantiate record type", e);
-        } catch (InvocationTargetException | IllegalAccessException | NoSuchMethodException e) {
+            return recordType.cast((Object) CONSTRUCTORS.get(recordType).invokeExact());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
 
     @Override
-    public T fromByteArray(byte[] bytesArray) {
-        this.clearBlock();
-        ByteArrayInputStream hlpByteArrayInputStream = new ByteArrayInputStream(bytesArray);
-        DataInputStream hlpInStream = new DataInputStream(hlpByteArrayInputStream);
-        try {
-            this.validCount = hlpInStream.readInt();
-            for (int i = 0; i < this.blockFactor; i++) {
-                byte[] recordBytes = new byte[this.recordSize];
-                hlpInStream.read(recordBytes);
-                T recordInstance = this.recordType.getDeclaredConstructor().newInstance();
-                IRecord<T> record = recordInstance.fromByteArray(recordBytes);
-                this.records[i] = record;
-            }
-            return null;
-        } catch (IOException e) {
-            throw new IllegalStateException("Cannot deserialize record", e);
-        } catch (InstantiationException e) {
-            throw new IllegalStateException("Cannot instantiate record type", e);
-        } catch (InvocationTargetException | IllegalAccessException | NoSuchMethodException e) {
-            throw new RuntimeException(e);
-        }
+    public T readFrom(ByteBuffer buffer, int offset) {
+        this.page.put(0, buffer, offset, this.blockSize);
+        this.pageLoaded();
+        return null;
     }
 
-    private void clearBlock() {
-        Arrays.fill(this.records, null);
-        this.validCount = 0;
+    //stranka pre priame citanie a zapis cez kanal - pozicia stranky sa inde nepouziva, vsetky pristupy su absolutne
+    ByteBuffer page() {
+        return this.page.clear();
     }
 
-    @Override
-    public byte[] toByteArray() {
-        ByteArrayOutputStream hlpByteArrayOutputStream = new ByteArrayOutputStream();
-        DataOutputStream hlpOutStream = new DataOutputStream(hlpByteArrayOutputStream);
-        try {
-            hlpOutStream.writeInt(this.validCount);
-            for (int i = 0; i < this.blockFactor; i++) {
-                if (this.records[i] != null) {
-                    hlpOutStream.write(this.records[i].toByteArray());
-                } else {
-                    hlpOutStream.write(new byte[this.recordSize]);
-                }
-            }
-            int currentSize = hlpByteArrayOutputStream.size();
-            if (currentSize < this.blockSize) {
-                hlpOutStream.write(new byte[this.blockSize - currentSize]);
-            }
-            return hlpByteArrayOutputStream.toByteArray();
-        } catch (IOException e) {
-            throw new IllegalStateException("Cannot serialize record", e);
+    //po nacitani bajtov priamo do stranky sa zahodia dekodovane zaznamy predosleho obsahu
+    void pageLoaded() {
+        this.validCount = this.page.getInt(0);
+        this.pageLsn = 0;
+        if (this.validCount > this.records.length) {
+            this.records = newRecordArray(this.validCount);
+        } else {
+            Arrays.fill(this.records, null);
         }
     }
 
+    @Override
+    public void writeTo(ByteBuffer buffer, int offset) {
+        buffer.put(offset, this.page, 0, this.blockSize);
+    }
+
     @Override
     public int getSize() {
         return this.blockSize;
     }
 
+    public void reset() {
+        this.clear();
+    }
+
+    private void clear() {
+        for (int i = 0; i + Long.BYTES <= this.blockSize; i += Long.BYTES) {
+            this.page.putLong(i, 0L);
+        }
+        for (int i = this.blockSize - this.blockSize % Long.BYTES; i < this.blockSize; i++) {
+            this.page.put(i, (byte) 0);
+        }
+        this.page.putInt(NEXT_OFFSET, NO_BLOCK);
+        this.page.putInt(PREVIOUS_OFFSET, NO_BLOCK);
+        if (this.slotted) {
+            this.page.putInt(DATA_START_OFFSET, this.blockSize);
+            this.page.putInt(FREE_BYTES_OFFSET, this.blockSize - SLOTTED_HEADER_SIZE);
+        }
+        this.validCount = 0;
+        this.pageLsn = 0;
+        Arrays.fill(this.records, null);
+    }
+
     //pomocna metoda pre testovanie
     public IRecord<T> getRecordAt(int index) {
-        return this.records[index];
+        IRecord<T> record = this.records[index];
+        if (record == null) {
+            record = this.createRecord();
+            record.readFrom(this.page, this.slotOffset(index));
+            this.records[index] = record;
+        }
+        return record;
+    }
+
+    //hash kluca zaznamu priamo z bajtov stranky bez dekodovania - zhoduje sa s getHash zaznamu
+    public int keyHashAt(int index) {
+        int keyOffset = this.prototype.getKeyOffset();
+        if (keyOffset < 0) {
+            return this.getRecordAt(index).getHash();
+        }
+        int position = this.slotOffset(index);
+        return IRecord.hashKey(this.page, position + keyOffset, this.prototype.getKeyLength(this.page, position));
+    }
+
+    //dekoduje zaznam do existujucej instancie bez toho, aby si ju blok zapamatal
+    public T readRecordInto(int index, T target) {
+        return target.readFrom(this.page, this.slotOffset(index));
+    }
+
+    public boolean containsRecord(T record) {
+        return this.findSlot(record) >= 0;
     }
 
+    public boolean matches(int index, IRecordPredicate predicate) {
+        return predicate.test(this.page, this.slotOffset(index));
+    }
 
     public T getCopyOfRecord(T record) {
-        for (int i = 0; i < this.blockFactor; i++) {
-            IRecord<T> currentRecord = this.records[i];
-            if (currentRecord != null && currentRecord.isEqual(record)) {
-                return currentRecord.createCopy();
-            }
+        int slot = this.findSlot(record);
+        if (slot < 0) {
+            return null;
         }
-        return null;
+        return this.getRecordAt(slot).createCopy();
     }
 
     public void addRecord(T record) {
-        if (this.validCount >= this.blockFactor) {
+        int position = this.allocateSlot(record.getStoredSize());
+        if (position < 0) {
             return;
         }
+        record.writeTo(this.page, position);
         this.records[this.validCount] = record;
         this.validCount++;
+        this.page.putInt(0, this.validCount);
     }
 
+    //surove bajty zaznamu bez dekodovania - pouziva export a import snapshotu, vrati dlzku zaznamu
+    public int copyRecordBytes(int index, byte[] target, int offset) {
+        int length = this.slotLength(index);
+        this.page.get(this.slotOffset(index), target, offset, length);
+        return length;
+    }
 
-    public T removeRecord(T record) {
-        for (int i = 0; i < this.blockFactor; i++) {
-            IRecord<T> currentRecord = this.records[i];
-            if (currentRecord != null && currentRecord.isEqual(record)) {
-                T copy = currentRecord.createCopy();
-                this.validCount--;
-                this.compact(i, copy);
-                return copy;
+    public void addRecordBytes(byte[] source, int offset, int length) {
+        if (!this.slotted && length != this.recordSize) {
+            throw new IllegalArgumentException("Record has " + length + " bytes, block stores " + this.recordSize);
+        }
+        int position = this.allocateSlot(length);
+        if (position < 0) {
+            return;
+        }
+        this.page.put(position, source, offset, length);
+        this.records[this.validCount] = null;
+        this.validCount++;
+        this.page.putInt(0, this.validCount);
+    }
+
+    //vrati poziciu pre novy zaznam alebo -1, ak sa do bloku nezmesti
+    private int allocateSlot(int length) {
+        if (!this.slotted) {
+            return this.validCount < this.blockFactor ? this.slotOffset(this.validCount) : -1;
+        }
+        int freeBytes = this.page.getInt(FREE_BYTES_OFFSET);
+        if (length > this.recordSize || length + SLOT_SIZE > freeBytes) {
+            return -1;
+        }
+        if (this.validCount == this.records.length) {
+            this.records = Arrays.copyOf(this.records, this.records.length * 2 + 1);
+        }
+        int directoryEnd = SLOTTED_HEADER_SIZE + (this.validCount + 1) * SLOT_SIZE;
+        if (this.page.getInt(DATA_START_OFFSET) - length < directoryEnd) {
+            this.defragment();
+        }
+        int position = this.page.getInt(DATA_START_OFFSET) - length;
+        this.page.putInt(DATA_START_OFFSET, position);
+        this.page.putInt(FREE_BYTES_OFFSET, freeBytes - length - SLOT_SIZE);
+        int entry = SLOTTED_HEADER_SIZE + this.validCount * SLOT_SIZE;
+        this.page.putShort(entry, (short) position);
+        this.page.putShort(entry + Short.BYTES, (short) length);
+        return position;
+    }
+
+    //po mazaniach su medzi zaznamami diery - zaznamy sa znova ulozia tesne ku koncu stranky
+    //presuvaju sa na mieste od najvyssieho posunu, zaznam sa tak posuva len k vyssim adresam a neprepise
+    //este nepresunuty zaznam; poradie sa drzi v opakovane pouzivanom poli, aby sa nealokovala kopia stranky
+    private void defragment() {
+        if (this.slotOrder == null || this.slotOrder.length < this.validCount) {
+            this.slotOrder = new long[this.records.length];
+        }
+        for (int i = 0; i < this.validCount; i++) {
+            this.slotOrder[i] = (long) this.slotOffset(i) << 32 | i;
+        }
+        Arrays.sort(this.slotOrder, 0, this.validCount);
+        int dataStart = this.blockSize;
+        for (int k = this.validCount - 1; k >= 0; k--) {
+            int i = (int) this.slotOrder[k];
+            int offset = (int) (this.slotOrder[k] >>> 32);
+            int length = this.slotLength(i);
+            dataStart -= length;
+            if (dataStart != offset) {
+                this.page.put(dataStart, this.page, offset, length);
             }
+            this.page.putShort(SLOTTED_HEADER_SIZE + i * SLOT_SIZE, (short) dataStart);
         }
-        return null;
+        this.page.putInt(DATA_START_OFFSET, dataStart);
+    }
+
+    public T removeRecord(T record) {
+        int slot = this.findSlot(record);
+        if (slot < 0) {
+            return null;
+        }
+        T copy = this.getRecordAt(slot).createCopy();
+        if (this.slotted) {
+            this.removeSlot(slot);
+            return copy;
+        }
+        this.validCount--;
+        this.page.putInt(0, this.validCount);
+        this.compact(slot, copy);
+        return copy;
+    }
+
+    //bajty zaznamu ostanu v stranke ako diera, kym ich nevyuzije defragmentacia
+    private void removeSlot(int removedIndex) {
+        int position = this.slotOffset(removedIndex);
+        int length = this.slotLength(removedIndex);
+        if (position == this.page.getInt(DATA_START_OFFSET)) {
+            this.page.putInt(DATA_START_OFFSET, position + length);
+        }
+        this.page.putInt(FREE_BYTES_OFFSET, this.page.getInt(FREE_BYTES_OFFSET) + length + SLOT_SIZE);
+
+        int entry = SLOTTED_HEADER_SIZE + removedIndex * SLOT_SIZE;
+        int directoryEnd = SLOTTED_HEADER_SIZE + this.validCount * SLOT_SIZE;
+        for (int i = entry; i + SLOT_SIZE < directoryEnd; i += SLOT_SIZE) {
+            this.page.putInt(i, this.page.getInt(i + SLOT_SIZE));
+        }
+        this.validCount--;
+        this.page.putInt(0, this.validCount);
+        for (int i = removedIndex; i < this.validCount; i++) {
+            this.records[i] = this.records[i + 1];
+        }
+        this.records[this.validCount] = null;
     }
 
     private void compact(int removedIndex, T recordCopy) {
+        int from = this.slotOffset(removedIndex + 1);
+        int to = this.slotOffset(this.validCount + 1);
+        this.page.put(this.slotOffset(removedIndex), this.page, from, to - from);
         for (int i = removedIndex; i < this.validCount; i++) {
             this.records[i] = this.records[i + 1];
         }
+        recordCopy.writeTo(this.page, this.slotOffset(this.validCount));
         this.records[this.validCount] = recordCopy;
     }
 
-    public void printRecords() {
-        for (int i = 0; i < this.blockFactor; i++) {
-            IRecord<T> currentRecord = this.records[i];
-            if (currentRecord != null) {
-                System.out.println(currentRecord);
+    private int findSlot(T record) {
+        int keyOffset = record.getKeyOffset();
+        if (keyOffset < 0) {
+            for (int i = 0; i < this.validCount; i++) {
+                if (this.getRecordAt(i).isEqual(record)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        if (this.keyProbe == null) {
+            this.keyProbe = ByteBuffer.allocate(this.recordSize);
+        }
+        record.writeTo(this.keyProbe, 0);
+        int keyLength = record.getKeyLength();
+        for (int i = 0; i < this.validCount; i++) {
+            // kratsi zaznam v stranke so slotmi ma kratsi aj kluc, s hladanym sa teda nezhoduje
+            if (this.slotted && keyOffset + keyLength > this.slotLength(i)) {
+                continue;
+            }
+            if (this.keyMatches(this.slotOffset(i) + keyOffset, keyOffset, keyLength)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean keyMatches(int pagePosition, int probePosition, int length) {
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            if (this.page.getLong(pagePosition + i) != this.keyProbe.getLong(probePosition + i)) {
+                return false;
+            }
+        }
+        for (; i < length; i++) {
+            if (this.page.get(pagePosition + i) != this.keyProbe.get(probePosition + i)) {
+                return false;
             }
         }
+        return true;
+    }
+
+    private int slotOffset(int index) {
+        if (this.slotted) {
+            return this.page.getShort(SLOTTED_HEADER_SIZE + index * SLOT_SIZE) & 0xFFFF;
+        }
+        return HEADER_SIZE + index * this.recordSize;
+    }
+
+    private int slotLength(int index) {
+        if (this.slotted) {
+            return this.page.getShort(SLOTTED_HEADER_SIZE + index * SLOT_SIZE + Short.BYTES) & 0xFFFF;
+        }
+        return this.recordSize;
+    }
+
+    //stranka so slotmi vypise len platne zaznamy, zmazane uz nemaju slot
+    public void printRecords() {
+        int shown = this.slotted ? this.validCount : this.blockFactor;
+        for (int i = 0; i < shown; i++) {
+            System.out.println(this.getRecordAt(i));
+        }
     }
 
     public int getValidCount() {
@@ -153,4 +407,52 @@ public class Block<T extends IRecord<T>> implements IByteOperation<T> {
     public int getBlockFactor() {
         return this.blockFactor;
     }
+
+    public int getRecordSize() {
+        return this.recordSize;
+    }
+
+    public boolean isSlotted() {
+        return this.slotted;
+    }
+
+    public int getFreeBytes() {
+        if (this.slotted) {
+            return this.page.getInt(FREE_BYTES_OFFSET);
+        }
+        return (this.blockFactor - this.validCount) * this.recordSize;
+    }
+
+    //plny blok uz nemusi prijat zaznam najvacsej velkosti - neplny ho prijme vzdy
+    public boolean isFull() {
+        if (this.slotted) {
+            return this.getFreeBytes() < SLOT_SIZE + this.recordSize;
+        }
+        return this.validCount >= this.blockFactor;
+    }
+
+    //LSN posledneho zaznamu v logu, ktory tento blok zmenil - neuklada sa na disk
+    public long getPageLsn() {
+        return this.pageLsn;
+    }
+
+    public void setPageLsn(long pageLsn) {
+        this.pageLsn = pageLsn;
+    }
+
+    public int getNextBlock() {
+        return this.page.getInt(NEXT_OFFSET);
+    }
+
+    public void setNextBlock(int blockIndex) {
+        this.page.putInt(NEXT_OFFSET, blockIndex);
+    }
+
+    public int getPreviousBlock() {
+        return this.page.getInt(PREVIOUS_OFFSET);
+    }
+
+    public void setPreviousBlock(int blockIndex) {
+        this.page.putInt(PREVIOUS_OFFSET, blockIndex);
+    }
 }
@@ -0,0 +1,146 @@
+package DS;
+
+import java.util.Arrays;
+
+// viacurovnova bitova mapa - kazdy bit vyssej urovne hovori, ci je prislusne slovo nizsej urovne nenulove,
+// takze hladanie najblizsieho nastaveneho bitu prejde len par slov
+public class BlockBitSet {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[][] levels;
+    private int capacity;
+    private int cardinality;
+
+    public BlockBitSet() {
+        this.capacity = INITIAL_CAPACITY;
+        this.levels = buildLevels(new long[wordCount(INITIAL_CAPACITY)]);
+    }
+
+    public boolean get(int index) {
+        if (index < 0 || index >= this.capacity) {
+            return false;
+        }
+        return (this.levels[0][index >>> 6] & (1L << index)) != 0;
+    }
+
+    public void set(int index) {
+        this.ensureCapacity(index);
+        if (this.get(index)) {
+            return;
+        }
+        this.cardinality++;
+        int bit = index;
+        for (long[] level : this.levels) {
+            int word = bit >>> 6;
+            boolean wasEmpty = level[word] == 0;
+            level[word] |= 1L << bit;
+            if (!wasEmpty) {
+                return;
+            }
+            bit = word;
+        }
+    }
+
+    public void clear(int index) {
+        if (!this.get(index)) {
+            return;
+        }
+        this.cardinality--;
+        int bit = index;
+        for (long[] level : this.levels) {
+            int word = bit >>> 6;
+            level[word] &= ~(1L << bit);
+            if (level[word] != 0) {
+                return;
+            }
+            bit = word;
+        }
+    }
+
+    public int nextSetBit(int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        if (from >= this.capacity) {
+            return -1;
+        }
+        int index = from;
+        for (int level = 0; level < this.levels.length; level++) {
+            int word = index >>> 6;
+            if (word >= this.levels[level].length) {
+                return -1;
+            }
+            long bits = this.levels[level][word] & (-1L << index);
+            if (bits != 0) {
+                index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                for (int lower = level - 1; lower >= 0; lower--) {
+                    index = (index << 6) + Long.numberOfTrailingZeros(this.levels[lower][index]);
+                }
+                return index;
+            }
+            index = word + 1;
+        }
+        return -1;
+    }
+
+    public int first() {
+        return this.nextSetBit(0);
+    }
+
+    public int cardinality() {
+        return this.cardinality;
+    }
+
+    public long[] toLongArray() {
+        return Arrays.copyOf(this.levels[0], this.levels[0].length);
+    }
+
+    public void loadLongArray(long[] words) {
+        this.capacity = Math.max(INITIAL_CAPACITY, (int) Math.min(Integer.MAX_VALUE, (long) words.length * 64));
+        this.levels = buildLevels(Arrays.copyOf(words, wordCount(this.capacity)));
+        this.cardinality = 0;
+        for (long word : words) {
+            this.cardinality += Long.bitCount(word);
+        }
+    }
+
+    public void clearAll() {
+        for (long[] level : this.levels) {
+            Arrays.fill(level, 0L);
+        }
+        this.cardinality = 0;
+    }
+
+    private void ensureCapacity(int index) {
+        if (index < this.capacity) {
+            return;
+        }
+        int newCapacity = (int) Math.min(Integer.MAX_VALUE, Math.max((long) this.capacity * 2, (long) index + 1));
+        this.levels = buildLevels(Arrays.copyOf(this.levels[0], wordCount(newCapacity)));
+        this.capacity = newCapacity;
+    }
+
+    private static long[][] buildLevels(long[] bottom) {
+        int levelCount = 1;
+        for (int words = bottom.length; words > 1; words = (words + 63) >>> 6) {
+            levelCount++;
+        }
+        long[][] levels = new long[levelCount][];
+        levels[0] = bottom;
+        for (int level = 1; level < levelCount; level++) {
+            long[] lower = levels[level - 1];
+            long[] upper = new long[(lower.length + 63) >>> 6];
+            for (int word = 0; word < lower.length; word++) {
+                if (lower[word] != 0) {
+                    upper[word >>> 6] |= 1L << word;
+                }
+            }
+            levels[level] = upper;
+        }
+        return levels;
+    }
+
+    private static int wordCount(int bits) {
+        return (int) (((long) bits + 63) >>> 6);
+    }
+}
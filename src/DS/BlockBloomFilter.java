@@ -0,0 +1,129 @@
+package DS;
+
+import java.io.*;
+import java.util.Arrays;
+
+// Bloom filter nad hashmi klucov pre kazdy blok zvlast - vsetky filtre su za sebou v jednom poli longov
+// pri vkladani sa bity len pridavaju, po mazani sa filter bloku prepocita zo zaznamov, ktore v nom ostali
+public class BlockBloomFilter {
+    private static final int HASH_COUNT = 10;
+    private static final int MIN_BITS = Long.SIZE;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    // zmeni sa spolu s hashom klucov - filter ulozeny so starsim hashom by mal bity na inych miestach
+    private static final int FORMAT = 0x424C4F32;
+
+    private final int bitsPerBlock;
+    private final int wordsPerBlock;
+    private long[] words;
+    private int blockCount;
+
+    //na blok pripada polovica jeho velkosti v bitoch - pri 1 KiB bloku 512 bitov, teda okolo 19 bitov na zaznam
+    //a pravdepodobnost falosnej zhody rado 1e-4 na blok
+    public BlockBloomFilter(int blockSize) {
+        this.bitsPerBlock = Math.max(MIN_BITS, Integer.highestOneBit(blockSize / 2));
+        this.wordsPerBlock = this.bitsPerBlock / Long.SIZE;
+        this.words = new long[this.wordsPerBlock * 64];
+    }
+
+    public void add(int blockIndex, int keyHash) {
+        this.ensureBlock(blockIndex);
+        int base = blockIndex * this.wordsPerBlock;
+        long state = keyHash;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            state += GOLDEN_GAMMA;
+            int bit = (int) mix(state) & (this.bitsPerBlock - 1);
+            this.words[base + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(int blockIndex, int keyHash) {
+        if (blockIndex >= this.blockCount) {
+            return false;
+        }
+        int base = blockIndex * this.wordsPerBlock;
+        long state = keyHash;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            state += GOLDEN_GAMMA;
+            int bit = (int) mix(state) & (this.bitsPerBlock - 1);
+            if ((this.words[base + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void rebuild(int blockIndex, Block<?> block) {
+        this.clear(blockIndex);
+        for (int i = 0; i < block.getValidCount(); i++) {
+            this.add(blockIndex, block.keyHashAt(i));
+        }
+    }
+
+    public void clear(int blockIndex) {
+        if (blockIndex < this.blockCount) {
+            int base = blockIndex * this.wordsPerBlock;
+            Arrays.fill(this.words, base, base + this.wordsPerBlock, 0L);
+        }
+    }
+
+    public void clearAll() {
+        Arrays.fill(this.words, 0L);
+        this.blockCount = 0;
+    }
+
+    private void ensureBlock(int blockIndex) {
+        if (blockIndex >= this.blockCount) {
+            int needed = (blockIndex + 1) * this.wordsPerBlock;
+            if (needed > this.words.length) {
+                this.words = Arrays.copyOf(this.words, Math.max(needed, this.words.length * 2));
+            }
+            this.blockCount = blockIndex + 1;
+        }
+    }
+
+    // kazdy bit ma vlastny krok splitmix64 - dvojite hashovanie (h1 + i * h2) ma pri malych filtroch
+    // vyrazne viac falosnych zhod
+    private static long mix(long state) {
+        long z = state;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public void save(File file, int totalBlocks) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(FORMAT);
+            out.writeInt(this.bitsPerBlock);
+            out.writeInt(totalBlocks);
+            int words = Math.min(totalBlocks, this.blockCount) * this.wordsPerBlock;
+            for (int i = 0; i < totalBlocks * this.wordsPerBlock; i++) {
+                out.writeLong(i < words ? this.words[i] : 0L);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error saving key filter: " + file.getName(), e);
+        }
+    }
+
+    //filter v inom formate, s inou velkostou alebo pre iny pocet blokov neplati, vtedy sa vrati false a musi sa poskladat z blokov
+    public boolean load(File file, int totalBlocks) {
+        if (!file.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT || in.readInt() != this.bitsPerBlock || in.readInt() != totalBlocks) {
+                return false;
+            }
+            this.clearAll();
+            if (totalBlocks > 0) {
+                this.ensureBlock(totalBlocks - 1);
+            }
+            for (int i = 0; i < totalBlocks * this.wordsPerBlock; i++) {
+                this.words[i] = in.readLong();
+            }
+            return true;
+        } catch (IOException e) {
+            this.clearAll();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package DS;
+
+import java.util.Arrays;
+
+// tabulka cislo bloku -> cislo ramca s otvorenym adresovanim - kluce ani hodnoty sa neboxuju,
+// takze pin a unpin nealokuju; hodnoty musia byt nezaporne
+final class BlockIndexMap {
+    static final int MISSING = -1;
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    BlockIndexMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        this.allocate(capacity);
+    }
+
+    int get(int key) {
+        for (int i = this.home(key); ; i = (i + 1) & this.mask) {
+            if (this.keys[i] == key) {
+                return this.values[i];
+            }
+            if (this.keys[i] == EMPTY) {
+                return MISSING;
+            }
+        }
+    }
+
+    void put(int key, int value) {
+        int i = this.home(key);
+        for (; this.keys[i] != EMPTY; i = (i + 1) & this.mask) {
+            if (this.keys[i] == key) {
+                this.values[i] = value;
+                return;
+            }
+        }
+        this.keys[i] = key;
+        this.values[i] = value;
+        if (++this.size * 2 > this.keys.length) {
+            this.grow();
+        }
+    }
+
+    //po odstraneni sa nasledujuce kluce posunu spat do diery, aby hladanie nemuselo preskakovat nahrobky
+    int remove(int key) {
+        int i = this.home(key);
+        for (; this.keys[i] != key; i = (i + 1) & this.mask) {
+            if (this.keys[i] == EMPTY) {
+                return MISSING;
+            }
+        }
+        int value = this.values[i];
+        int gap = i;
+        for (int j = (i + 1) & this.mask; this.keys[j] != EMPTY; j = (j + 1) & this.mask) {
+            if (((j - this.home(this.keys[j])) & this.mask) >= ((j - gap) & this.mask)) {
+                this.keys[gap] = this.keys[j];
+                this.values[gap] = this.values[j];
+                gap = j;
+            }
+        }
+        this.keys[gap] = EMPTY;
+        this.size--;
+        return value;
+    }
+
+    int size() { return this.size; }
+
+    private int home(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+    private void grow() {
+        int[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        this.allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                this.put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        this.size = 0;
+        Arrays.fill(this.keys, EMPTY);
+    }
+}
@@ -0,0 +1,90 @@
+package DS;
+
+import Interface.IBlockStorage;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class ChannelBlockStorage implements IBlockStorage {
+    private final FileChannel channel;
+    private final int blockSize;
+
+    public ChannelBlockStorage(File file, int blockSize) {
+        this.blockSize = blockSize;
+        try {
+            this.channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot open data file: " + file.getName(), e);
+        }
+    }
+
+    @Override
+    public void readBlock(int blockIndex, ByteBuffer destination) {
+        this.readBlocks(blockIndex, destination);
+    }
+
+    @Override
+    public void readBlocks(int firstBlockIndex, ByteBuffer destination) {
+        long position = (long) firstBlockIndex * this.blockSize;
+        try {
+            while (destination.hasRemaining()) {
+                int read = this.channel.read(destination, position);
+                if (read < 0) {
+                    throw new EOFException("Block " + (position / this.blockSize) + " is beyond the end of the data file");
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void writeBlock(int blockIndex, ByteBuffer source) {
+        this.writeBlocks(blockIndex, source);
+    }
+
+    @Override
+    public void writeBlocks(int firstBlockIndex, ByteBuffer source) {
+        long position = (long) firstBlockIndex * this.blockSize;
+        try {
+            while (source.hasRemaining()) {
+                position += this.channel.write(source, position);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void truncate(int blockCount) {
+        try {
+            this.channel.truncate((long) blockCount * this.blockSize);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void force() {
+        try {
+            this.channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package DS;
+
+import Interface.IBufferManager;
+import Interface.IRecord;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+public class ClockBufferPool<T extends IRecord<T>> implements IBufferManager<T> {
+    private static final int NO_BLOCK = -1;
+
+    private final IntFunction<Block<T>> reader;
+    private final Supplier<Block<T>> emptyBlockFactory;
+    private final ObjIntConsumer<Block<T>> writer;
+    // vyhodeny blok sa vrati vlastnikovi, ktory jeho objekt a stranku pouzije pre dalsi blok
+    private final Consumer<Block<T>> recycler;
+
+    private final Block<T>[] frames;
+    private final int[] frameBlocks;
+    private final int[] pinCounts;
+    private final boolean[] dirty;
+    private final boolean[] referenced;
+    private final BlockIndexMap frameOfBlock;
+    private int clockHand;
+
+    private long hits;
+    private long misses;
+
+    public ClockBufferPool(int frameCount, IntFunction<Block<T>> reader, Supplier<Block<T>> emptyBlockFactory,
+                           ObjIntConsumer<Block<T>> writer, Consumer<Block<T>> recycler) {
+        if (frameCount <= 0) {
+            throw new IllegalArgumentException("Buffer pool needs at least one frame");
+        }
+        this.reader = reader;
+        this.emptyBlockFactory = emptyBlockFactory;
+        this.writer = writer;
+        this.recycler = recycler;
+        this.frames = Block.newArray(frameCount);
+        this.frameBlocks = new int[frameCount];
+        this.pinCounts = new int[frameCount];
+        this.dirty = new boolean[frameCount];
+        this.referenced = new boolean[frameCount];
+        this.frameOfBlock = new BlockIndexMap(frameCount);
+        Arrays.fill(this.frameBlocks, NO_BLOCK);
+    }
+
+    public static int framesForBytes(long bytes, int blockSize) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, bytes / blockSize));
+    }
+
+    @Override
+    public Block<T> pin(int blockIndex) {
+        int frame = this.frameOfBlock.get(blockIndex);
+        if (frame != BlockIndexMap.MISSING) {
+            this.hits++;
+            return this.pinFrame(frame);
+        }
+        this.misses++;
+        int victim = this.evict();
+        this.install(victim, blockIndex, this.reader.apply(blockIndex));
+        return this.pinFrame(victim);
+    }
+
+    @Override
+    public Block<T> pinNew(int blockIndex) {
+        int frame = this.frameOfBlock.get(blockIndex);
+        if (frame != BlockIndexMap.MISSING) {
+            this.recycler.accept(this.frames[frame]);
+            this.frames[frame] = this.emptyBlockFactory.get();
+            return this.pinFrame(frame);
+        }
+        int victim = this.evict();
+        this.install(victim, blockIndex, this.emptyBlockFactory.get());
+        return this.pinFrame(victim);
+    }
+
+    @Override
+    public void unpin(int blockIndex, boolean dirty) {
+        int frame = this.frameOfBlock.get(blockIndex);
+        if (frame == BlockIndexMap.MISSING || this.pinCounts[frame] == 0) {
+            throw new IllegalStateException("Block " + blockIndex + " is not pinned");
+        }
+        this.pinCounts[frame]--;
+        this.dirty[frame] |= dirty;
+    }
+
+    @Override
+    public void discard(int blockIndex) {
+        int frame = this.frameOfBlock.remove(blockIndex);
+        if (frame != BlockIndexMap.MISSING) {
+            this.recycler.accept(this.frames[frame]);
+            this.clearFrame(frame);
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (int i = 0; i < this.frames.length; i++) {
+            if (this.dirty[i]) {
+                this.writer.accept(this.frames[i], this.frameBlocks[i]);
+                this.dirty[i] = false;
+            }
+        }
+    }
+
+    @Override
+    public long getHits() {
+        return this.hits;
+    }
+
+    @Override
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public int getFrameCount() {
+        return this.frames.length;
+    }
+
+    private Block<T> pinFrame(int frame) {
+        this.pinCounts[frame]++;
+        this.referenced[frame] = true;
+        return this.frames[frame];
+    }
+
+    private void install(int frame, int blockIndex, Block<T> block) {
+        this.frames[frame] = block;
+        this.frameBlocks[frame] = blockIndex;
+        this.frameOfBlock.put(blockIndex, frame);
+    }
+
+    private int evict() {
+        // dve otocky - v prvej sa mazu referenced bity, v druhej sa uz musi najst obet
+        for (int step = 0; step < this.frames.length * 2; step++) {
+            int frame = this.clockHand;
+            this.clockHand = (this.clockHand + 1) % this.frames.length;
+
+            if (this.frameBlocks[frame] == NO_BLOCK) {
+                return frame;
+            }
+            if (this.pinCounts[frame] > 0) {
+                continue;
+            }
+            if (this.referenced[frame]) {
+                this.referenced[frame] = false;
+                continue;
+            }
+            if (this.dirty[frame]) {
+                this.writer.accept(this.frames[frame], this.frameBlocks[frame]);
+            }
+            this.frameOfBlock.remove(this.frameBlocks[frame]);
+            this.recycler.accept(this.frames[frame]);
+            this.clearFrame(frame);
+            return frame;
+        }
+        throw new IllegalStateException("All buffer frames are pinned");
+    }
+
+    private void clearFrame(int frame) {
+        this.frames[frame] = null;
+        this.frameBlocks[frame] = NO_BLOCK;
+        this.pinCounts[frame] = 0;
+        this.dirty[frame] = false;
+        this.referenced[frame] = false;
+    }
+}
@@ -0,0 +1,333 @@
+package DS;
+
+import Interface.IBlockStorage;
+import Interface.IHeapFile;
+import Interface.IRecord;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// heap file pre viac vlakien - blok chrani jeden zo zamkov vybrany podla indexu bloku,
+// volne miesto sa drzi len v pamati a po otvoreni sa poskladava z hlaviciek blokov
+public class ConcurrentHeapFile<T extends IRecord<T>> implements IHeapFile<T> {
+    public static final int DEFAULT_STRIPES = 64;
+    // kolko obsadenych blokov sa vyskusa, kym sa radsej zalozi novy blok
+    private static final int MAX_INSERT_PROBES = 4;
+    private static final int REBUILD_READ_BYTES = 1024 * 1024;
+
+    private static final int SUPERBLOCK_MAGIC = 0x43484541;
+    private static final int FORMAT_VERSION = 2;
+    private static final int SB_MAGIC = 0;
+    private static final int SB_VERSION = 4;
+    private static final int SB_BLOCK_SIZE = 8;
+    private static final int SB_TOTAL_BLOCKS = 12;
+    // pocet zaznamov sa neuklada - po otvoreni sa aj tak spocita pri prechode blokmi
+    private static final int SUPERBLOCK_SIZE = 16;
+
+    private final File dataFile;
+    private final IBlockStorage storage;
+    private final Class<T> recordClass;
+    private final int blockSize;
+
+    private final ReentrantReadWriteLock[] stripes;
+    private final int stripeMask;
+    private final Lock allocationLock;
+
+    private final ConcurrentSkipListSet<Integer> emptyBlocks;
+    private final ConcurrentSkipListSet<Integer> partialBlocks;
+    // poradie, v akom sa hlada miesto pre novy zaznam
+    private final List<ConcurrentSkipListSet<Integer>> freeBlockSets;
+
+    private final ThreadLocal<Block<T>> localBlocks;
+    private final ThreadLocal<ByteBuffer> localBuffers;
+
+    private volatile int totalBlocks;
+    private final AtomicInteger totalRecords;
+
+    public ConcurrentHeapFile(String fileName, Class<T> recordClass, int blockSize) {
+        this(fileName, recordClass, blockSize, DEFAULT_STRIPES);
+    }
+
+    public ConcurrentHeapFile(String fileName, Class<T> recordClass, int blockSize, int stripeCount) {
+        if (blockSize < SUPERBLOCK_SIZE) {
+            throw new IllegalArgumentException("Block size must be at least " + SUPERBLOCK_SIZE + " bytes");
+        }
+        this.dataFile = new File(fileName);
+        this.recordClass = recordClass;
+        this.blockSize = blockSize;
+        if (this.createEmptyBlock().getBlockFactor() == 0) {
+            throw new IllegalArgumentException("Block size " + blockSize + " cannot hold a single record");
+        }
+
+        // pocet zamkov je mocnina dvojky, aby sa zamok vyberal maskou
+        int stripes = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new ReentrantReadWriteLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantReadWriteLock();
+        }
+        this.stripeMask = stripes - 1;
+        this.allocationLock = new ReentrantLock();
+
+        this.emptyBlocks = new ConcurrentSkipListSet<>();
+        this.partialBlocks = new ConcurrentSkipListSet<>();
+        this.freeBlockSets = List.of(this.partialBlocks, this.emptyBlocks);
+        this.localBlocks = ThreadLocal.withInitial(this::createEmptyBlock);
+        this.localBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(this.blockSize));
+        this.totalRecords = new AtomicInteger();
+
+        boolean existed = this.dataFile.length() > 0;
+        this.storage = new ChannelBlockStorage(this.dataFile, blockSize);
+        if (existed) {
+            this.readSuperblock();
+            this.rebuildFreeSpace();
+        }
+        this.writeSuperblock();
+    }
+
+    @Override
+    public int insertRecord(T record) {
+        int blockIndex = this.insertIntoFreeBlock(record);
+        if (blockIndex < 0) {
+            blockIndex = this.appendBlock(record);
+        }
+        return blockIndex;
+    }
+
+    //vlakna zacinaju hladat na nahodnom mieste a obsadene bloky preskakuju,
+    //aby sa subezne vkladania nestretavali na tom istom ciastocne plnom bloku
+    private int insertIntoFreeBlock(T record) {
+        int start = ThreadLocalRandom.current().nextInt(Math.max(1, this.totalBlocks));
+        int probes = 0;
+        for (ConcurrentSkipListSet<Integer> candidates : this.freeBlockSets) {
+            Integer candidate = candidates.ceiling(start);
+            if (candidate == null) {
+                candidate = candidates.ceiling(0);
+            }
+            while (candidate != null && probes < MAX_INSERT_PROBES) {
+                if (this.tryInsertInto(candidate, record)) {
+                    return candidate;
+                }
+                probes++;
+                candidate = candidates.higher(candidate);
+            }
+        }
+        return -1;
+    }
+
+    private boolean tryInsertInto(int blockIndex, T record) {
+        Lock lock = this.stripeOf(blockIndex).writeLock();
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            // mnoziny volnych blokov su len napoveda, platny je az stav bloku pod zamkom
+            Block<T> block = this.readBlock(blockIndex);
+            if (block.isFull()) {
+                return false;
+            }
+            block.addRecord(record);
+            this.writeBlock(blockIndex, block);
+            this.updateFreeSpace(blockIndex, block);
+            this.totalRecords.incrementAndGet();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //novy blok je najprv zapisany a az potom zapocitany do totalBlocks, citatelia tak nevidia nezapisany blok
+    private int appendBlock(T record) {
+        this.allocationLock.lock();
+        try {
+            int blockIndex = this.totalBlocks;
+            Lock lock = this.stripeOf(blockIndex).writeLock();
+            lock.lock();
+            try {
+                Block<T> block = this.localBlocks.get();
+                block.reset();
+                block.addRecord(record);
+                this.writeBlock(blockIndex, block);
+                this.totalBlocks = blockIndex + 1;
+                this.updateFreeSpace(blockIndex, block);
+                this.totalRecords.incrementAndGet();
+                return blockIndex;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            this.allocationLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteRecord(int index, T record) {
+        if (index < 0 || index >= this.totalBlocks) {
+            return false;
+        }
+
+        Lock lock = this.stripeOf(index).writeLock();
+        lock.lock();
+        try {
+            Block<T> block = this.readBlock(index);
+            if (block.removeRecord(record) == null) {
+                return false;
+            }
+            this.writeBlock(index, block);
+            this.updateFreeSpace(index, block);
+            this.totalRecords.decrementAndGet();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T findRecord(int index, T record) {
+        if (index < 0 || index >= this.totalBlocks) {
+            return null;
+        }
+
+        Lock lock = this.stripeOf(index).readLock();
+        lock.lock();
+        try {
+            return this.readBlock(index).getCopyOfRecord(record);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //vrati vlastnu kopiu bloku, ktora sa uz s inymi vlaknami nezdiela
+    @Override
+    public Block<T> getBlock(int blockIndex) {
+        Block<T> block = this.createEmptyBlock();
+        Lock lock = this.stripeOf(blockIndex).readLock();
+        lock.lock();
+        try {
+            ByteBuffer buffer = this.localBuffers.get().clear();
+            this.storage.readBlock(HeapFile.pageOf(blockIndex), buffer);
+            block.readFrom(buffer, 0);
+        } finally {
+            lock.unlock();
+        }
+        return block;
+    }
+
+    private ReentrantReadWriteLock stripeOf(int blockIndex) {
+        return this.stripes[blockIndex & this.stripeMask];
+    }
+
+    private Block<T> readBlock(int blockIndex) {
+        ByteBuffer buffer = this.localBuffers.get().clear();
+        this.storage.readBlock(HeapFile.pageOf(blockIndex), buffer);
+        Block<T> block = this.localBlocks.get();
+        block.readFrom(buffer, 0);
+        return block;
+    }
+
+    private void writeBlock(int blockIndex, Block<T> block) {
+        ByteBuffer buffer = this.localBuffers.get();
+        block.writeTo(buffer, 0);
+        this.storage.writeBlock(HeapFile.pageOf(blockIndex), buffer.clear());
+    }
+
+    //vola sa len pod zamkom bloku - blok sa najprv prida do novej mnoziny, aby aspon v jednej stale bol
+    private void updateFreeSpace(int blockIndex, Block<T> block) {
+        if (block.getValidCount() == 0) {
+            this.emptyBlocks.add(blockIndex);
+            this.partialBlocks.remove(blockIndex);
+        } else if (!block.isFull()) {
+            this.partialBlocks.add(blockIndex);
+            this.emptyBlocks.remove(blockIndex);
+        } else {
+            this.partialBlocks.remove(blockIndex);
+            this.emptyBlocks.remove(blockIndex);
+        }
+    }
+
+    private void rebuildFreeSpace() {
+        int blocksPerRead = Math.max(1, REBUILD_READ_BYTES / this.blockSize);
+        ByteBuffer batch = ByteBuffer.allocate(blocksPerRead * this.blockSize);
+        Block<T> block = this.createEmptyBlock();
+        int records = 0;
+        for (int first = 0; first < this.totalBlocks; first += blocksPerRead) {
+            int count = Math.min(blocksPerRead, this.totalBlocks - first);
+            batch.clear().limit(count * this.blockSize);
+            this.storage.readBlocks(HeapFile.pageOf(first), batch);
+            for (int i = 0; i < count; i++) {
+                block.readFrom(batch, i * this.blockSize);
+                records += block.getValidCount();
+                this.updateFreeSpace(first + i, block);
+            }
+        }
+        this.totalRecords.set(records);
+    }
+
+    private void readSuperblock() {
+        ByteBuffer superblock = ByteBuffer.allocate(this.blockSize);
+        this.storage.readBlock(0, superblock);
+        if (superblock.getInt(SB_MAGIC) != SUPERBLOCK_MAGIC || superblock.getInt(SB_VERSION) != FORMAT_VERSION) {
+            throw new IllegalStateException("File " + this.dataFile.getName() + " is not a concurrent heap file of version " + FORMAT_VERSION);
+        }
+        if (superblock.getInt(SB_BLOCK_SIZE) != this.blockSize) {
+            throw new IllegalStateException("File " + this.dataFile.getName() + " uses block size " + superblock.getInt(SB_BLOCK_SIZE));
+        }
+        // bloky sa zapisuju pred zapocitanim, preto po padu plati dlzka suboru a nie superblok
+        this.totalBlocks = (int) (this.dataFile.length() / this.blockSize) - 1;
+    }
+
+    private void writeSuperblock() {
+        ByteBuffer superblock = ByteBuffer.allocate(this.blockSize);
+        superblock.putInt(SB_MAGIC, SUPERBLOCK_MAGIC);
+        superblock.putInt(SB_VERSION, FORMAT_VERSION);
+        superblock.putInt(SB_BLOCK_SIZE, this.blockSize);
+        superblock.putInt(SB_TOTAL_BLOCKS, this.totalBlocks);
+        this.storage.writeBlock(0, superblock);
+    }
+
+    private Block<T> createEmptyBlock() {
+        return new Block<>(this.recordClass, this.blockSize);
+    }
+
+    public void flush() {
+        this.writeSuperblock();
+    }
+
+    public void force() {
+        this.flush();
+        this.storage.force();
+    }
+
+    public int getTotalBlocks() { return this.totalBlocks; }
+    public int getTotalRecords() { return this.totalRecords.get(); }
+    public int getEmptyBlockCount() { return this.emptyBlocks.size(); }
+    public int getPartiallyEmptyBlockCount() { return this.partialBlocks.size(); }
+    public int getStripeCount() { return this.stripes.length; }
+
+    @Override
+    public Class<T> getRecordClass() {
+        return this.recordClass;
+    }
+
+    //vola sa az ked ziadne vlakno so suborom nepracuje - prazdne bloky na konci sa odrezu
+    @Override
+    public void close() {
+        this.allocationLock.lock();
+        try {
+            while (this.totalBlocks > 0 && this.emptyBlocks.remove(this.totalBlocks - 1)) {
+                this.totalBlocks--;
+            }
+            this.storage.truncate(HeapFile.pageOf(this.totalBlocks));
+            this.writeSuperblock();
+        } finally {
+            this.allocationLock.unlock();
+        }
+        this.storage.close();
+    }
+}
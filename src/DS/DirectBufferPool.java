@@ -0,0 +1,37 @@
+package DS;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+// volne priame buffery velkosti bloku - kanal cita a zapisuje priamo do nich, pri bufferi na halde
+// by JDK kopiroval bajty cez docasny priamy buffer; alokacia priameho buffera je draha, preto sa recykluju
+class DirectBufferPool {
+    private final int bufferSize;
+    private final int maxRetained;
+    private final ArrayDeque<ByteBuffer> free;
+    private long allocations;
+
+    DirectBufferPool(int bufferSize, int maxRetained) {
+        this.bufferSize = bufferSize;
+        this.maxRetained = maxRetained;
+        this.free = new ArrayDeque<>();
+    }
+
+    ByteBuffer acquire() {
+        ByteBuffer buffer = this.free.pollLast();
+        if (buffer == null) {
+            this.allocations++;
+            buffer = ByteBuffer.allocateDirect(this.bufferSize);
+        }
+        return buffer.clear();
+    }
+
+    //buffer nad limit sa zahodi, pamat mimo haldy uvolni az garbage collector
+    void release(ByteBuffer buffer) {
+        if (this.free.size() < this.maxRetained) {
+            this.free.addLast(buffer);
+        }
+    }
+
+    long getAllocations() { return this.allocations; }
+}
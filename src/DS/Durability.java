@@ -0,0 +1,10 @@
+package DS;
+
+public enum Durability {
+    // bez logu - zmeny su na disku az po vypisani buffer poolu
+    NONE,
+    // operacia sa zapise do logu, fsync robi periodicky vlakno na pozadi
+    BATCHED,
+    // operacia skonci az ked je jej zaznam v logu na disku, subezne operacie zdielaju jeden fsync
+    PER_OP
+}
@@ -0,0 +1,349 @@
+package DS;
+
+import Interface.IBlockStorage;
+import Interface.IRecord;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// rozsiritelne hesovanie - adresar s globalnou hlbkou ukazuje na bloky (buckety), kazdy blok ma lokalnu hlbku
+// bucket sa vyberie podla najnizsich globalDepth bitov hashu, takze vyhladanie je jedno citanie bloku
+// bucket, ktory sa uz rozdelit neda (najvacsia hlbka alebo rovnaky hash vsetkych zaznamov), pokracuje
+// retazou preplnovacich stranok cez nextBlock
+public class ExtendibleHashFile<T extends IRecord<T>> implements AutoCloseable {
+    private static final int MAX_GLOBAL_DEPTH = 24;
+    // pocet stranok a zaznamov v subore adresara, prepisuju sa pri kazdej zmene
+    private static final int COUNTS_OFFSET = Integer.BYTES;
+
+    private final File directoryFile;
+    private final File directoryTempFile;
+    private final IBlockStorage storage;
+    private final Class<T> recordClass;
+    private final int blockSize;
+    private final ByteBuffer ioBuffer;
+    private final ByteBuffer countsBuffer;
+    private final Block<T> block;
+    private final Block<T> splitBlock;
+    private FileChannel directoryChannel;
+
+    private int globalDepth;
+    private int[] directory;
+    // podla cisla stranky, pre preplnovacie stranky sa nepouziva
+    private byte[] localDepths;
+    // pocet stranok vratane preplnovacich
+    private int bucketCount;
+    private int totalRecords;
+
+    public ExtendibleHashFile(String baseFileName, Class<T> recordClass, int blockSize) {
+        this.directoryFile = new File(baseFileName + "_dir.bin");
+        this.directoryTempFile = new File(baseFileName + "_dir.tmp");
+        this.recordClass = recordClass;
+        this.blockSize = blockSize;
+        this.ioBuffer = ByteBuffer.allocate(blockSize);
+        this.countsBuffer = ByteBuffer.allocate(2 * Integer.BYTES);
+        this.block = new Block<>(recordClass, blockSize);
+        this.splitBlock = new Block<>(recordClass, blockSize);
+        if (!this.block.createRecord().hasKeyHash()) {
+            throw new IllegalArgumentException(recordClass.getSimpleName() + " does not provide a key hash");
+        }
+        this.storage = new ChannelBlockStorage(new File(baseFileName), blockSize);
+
+        if (this.directoryFile.exists()) {
+            this.loadDirectory();
+            this.openDirectoryChannel();
+        } else {
+            this.globalDepth = 0;
+            this.directory = new int[]{0};
+            this.localDepths = new byte[]{0};
+            this.bucketCount = 1;
+            this.block.reset();
+            this.writeBucket(0, this.block);
+            this.saveDirectory();
+        }
+    }
+
+    public boolean insert(T record) {
+        int hash = mix(record.getHash());
+        while (true) {
+            int bucket = this.directory[hash & this.mask(this.globalDepth)];
+            int freePage = Block.NO_BLOCK;
+            int lastPage = bucket;
+            for (int page = bucket; page != Block.NO_BLOCK; page = this.block.getNextBlock()) {
+                this.readBucket(page, this.block);
+                if (this.block.containsRecord(record)) {
+                    return false;
+                }
+                if (freePage == Block.NO_BLOCK && !this.block.isFull()) {
+                    freePage = page;
+                }
+                lastPage = page;
+            }
+            if (freePage != Block.NO_BLOCK) {
+                if (freePage != lastPage) {
+                    this.readBucket(freePage, this.block);
+                }
+                this.block.addRecord(record);
+                this.writeBucket(freePage, this.block);
+                this.recordsChanged(1);
+                return true;
+            }
+            if (!this.split(bucket, hash)) {
+                this.appendOverflowPage(lastPage, record);
+                this.recordsChanged(1);
+                return true;
+            }
+        }
+    }
+
+    public T find(T record) {
+        int bucket = this.directory[mix(record.getHash()) & this.mask(this.globalDepth)];
+        for (int page = bucket; page != Block.NO_BLOCK; page = this.block.getNextBlock()) {
+            this.readBucket(page, this.block);
+            T found = this.block.getCopyOfRecord(record);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    public boolean delete(T record) {
+        int bucket = this.directory[mix(record.getHash()) & this.mask(this.globalDepth)];
+        for (int page = bucket; page != Block.NO_BLOCK; page = this.block.getNextBlock()) {
+            this.readBucket(page, this.block);
+            if (this.block.removeRecord(record) != null) {
+                this.writeBucket(page, this.block);
+                this.recordsChanged(-1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //rozdeli cely retazec bucketu podla bitu localDepth; ak delenie nepomoze (najvacsia hlbka alebo vsetky
+    //zaznamy maju hash noveho zaznamu), vrati false a nic nezmeni
+    //zapisuje sa novy bucket, adresar a az potom sa presunute zaznamy odstrania zo stareho retazca - po vypadku
+    //medzi tym ostanu v starom buckete kopie, na ktore adresar neukazuje, a dalsie delenie ich zahodi
+    private boolean split(int bucket, int hash) {
+        int localDepth = this.localDepths[bucket];
+        if (localDepth == MAX_GLOBAL_DEPTH) {
+            return false;
+        }
+        int splitBit = 1 << localDepth;
+        List<T> moved = new ArrayList<>();
+        boolean separable = false;
+        for (int page = bucket; page != Block.NO_BLOCK; page = this.block.getNextBlock()) {
+            this.readBucket(page, this.block);
+            for (int i = 0; i < this.block.getValidCount(); i++) {
+                T record = this.block.readRecordInto(i, this.block.createRecord());
+                int recordHash = mix(record.getHash());
+                separable |= recordHash != hash;
+                if ((recordHash & splitBit) != 0 && this.bucketOf(recordHash) == bucket) {
+                    moved.add(record);
+                }
+            }
+        }
+        if (!separable) {
+            return false;
+        }
+
+        if (localDepth == this.globalDepth) {
+            this.doubleDirectory();
+        }
+        int newBucket = this.allocatePage();
+        this.localDepths[bucket] = (byte) (localDepth + 1);
+        this.localDepths[newBucket] = (byte) (localDepth + 1);
+        for (int i = 0; i < this.directory.length; i++) {
+            if (this.directory[i] == bucket && (i & splitBit) != 0) {
+                this.directory[i] = newBucket;
+            }
+        }
+
+        this.writeChain(newBucket, moved);
+        this.saveDirectory();
+
+        List<T> removed = new ArrayList<>();
+        for (int page = bucket; page != Block.NO_BLOCK; page = this.block.getNextBlock()) {
+            this.readBucket(page, this.block);
+            removed.clear();
+            for (int i = 0; i < this.block.getValidCount(); i++) {
+                T record = this.block.readRecordInto(i, this.block.createRecord());
+                if (this.bucketOf(mix(record.getHash())) != bucket) {
+                    removed.add(record);
+                }
+            }
+            if (!removed.isEmpty()) {
+                for (T record : removed) {
+                    this.block.removeRecord(record);
+                }
+                this.writeBucket(page, this.block);
+            }
+        }
+        return true;
+    }
+
+    //zapise zaznamy do noveho retazca od stranky head, dalsie stranky sa pridelia podla potreby
+    private void writeChain(int head, List<T> records) {
+        int page = head;
+        this.splitBlock.reset();
+        for (T record : records) {
+            if (this.splitBlock.isFull()) {
+                int next = this.allocatePage();
+                this.splitBlock.setNextBlock(next);
+                this.writeBucket(page, this.splitBlock);
+                this.splitBlock.reset();
+                page = next;
+            }
+            this.splitBlock.addRecord(record);
+        }
+        this.writeBucket(page, this.splitBlock);
+    }
+
+    //nova stranka sa zapise a pocet stranok ulozi skor, nez na nu ukaze retazec - po vypadku ostane nanajvys
+    //nepouzita stranka
+    private void appendOverflowPage(int lastPage, T record) {
+        int page = this.allocatePage();
+        this.splitBlock.reset();
+        this.splitBlock.addRecord(record);
+        this.writeBucket(page, this.splitBlock);
+        this.saveCounts();
+        this.readBucket(lastPage, this.block);
+        this.block.setNextBlock(page);
+        this.writeBucket(lastPage, this.block);
+    }
+
+    private int allocatePage() {
+        int page = this.bucketCount++;
+        if (page == this.localDepths.length) {
+            this.localDepths = Arrays.copyOf(this.localDepths, this.localDepths.length * 2);
+        }
+        return page;
+    }
+
+    private int bucketOf(int hash) {
+        return this.directory[hash & this.mask(this.globalDepth)];
+    }
+
+    private void recordsChanged(int delta) {
+        this.totalRecords += delta;
+        this.saveCounts();
+    }
+
+    private void doubleDirectory() {
+        int size = this.directory.length;
+        this.directory = Arrays.copyOf(this.directory, size * 2);
+        System.arraycopy(this.directory, 0, this.directory, size, size);
+        this.globalDepth++;
+    }
+
+    private int mask(int depth) {
+        return (1 << depth) - 1;
+    }
+
+    //rozptyli bity hashu, aby aj zle rozlozene hashe delili buckety rovnomerne
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        return hash ^ (hash >>> 16);
+    }
+
+    private void readBucket(int bucket, Block<T> target) {
+        this.storage.readBlock(bucket, this.ioBuffer.clear());
+        target.readFrom(this.ioBuffer, 0);
+    }
+
+    private void writeBucket(int bucket, Block<T> source) {
+        source.writeTo(this.ioBuffer, 0);
+        this.storage.writeBlock(bucket, this.ioBuffer.clear());
+    }
+
+    //adresar sa zapise do docasneho suboru a premenuje - po vypadku ostane cely stary alebo cely novy
+    private void saveDirectory() {
+        try {
+            if (this.directoryChannel != null) {
+                this.directoryChannel.close();
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.directoryTempFile)))) {
+                out.writeInt(this.globalDepth);
+                out.writeInt(this.bucketCount);
+                out.writeInt(this.totalRecords);
+                for (int bucket : this.directory) {
+                    out.writeInt(bucket);
+                }
+                out.write(this.localDepths, 0, this.bucketCount);
+            }
+            Files.move(this.directoryTempFile.toPath(), this.directoryFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Error saving directory: " + this.directoryFile.getName(), e);
+        }
+        this.openDirectoryChannel();
+    }
+
+    //adresar sa meni len pri deleni, inak staci prepisat pocty v hlavicke
+    private void saveCounts() {
+        this.countsBuffer.clear().putInt(this.bucketCount).putInt(this.totalRecords).flip();
+        try {
+            long position = COUNTS_OFFSET;
+            while (this.countsBuffer.hasRemaining()) {
+                position += this.directoryChannel.write(this.countsBuffer, position);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error saving directory: " + this.directoryFile.getName(), e);
+        }
+    }
+
+    private void openDirectoryChannel() {
+        try {
+            this.directoryChannel = FileChannel.open(this.directoryFile.toPath(), StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening directory: " + this.directoryFile.getName(), e);
+        }
+    }
+
+    private void loadDirectory() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.directoryFile)))) {
+            this.globalDepth = in.readInt();
+            this.bucketCount = in.readInt();
+            this.totalRecords = in.readInt();
+            this.directory = new int[1 << this.globalDepth];
+            for (int i = 0; i < this.directory.length; i++) {
+                this.directory[i] = in.readInt();
+            }
+            this.localDepths = new byte[Math.max(1, this.bucketCount)];
+            // preplnovacie stranky pridane po poslednom ulozeni adresara lokalnu hlbku v subore nemaju
+            long header = 3L * Integer.BYTES + (long) this.directory.length * Integer.BYTES;
+            in.readFully(this.localDepths, 0, (int) Math.min(this.bucketCount, this.directoryFile.length() - header));
+        } catch (IOException e) {
+            throw new RuntimeException("Error loading directory: " + this.directoryFile.getName(), e);
+        }
+    }
+
+    public int getGlobalDepth() { return this.globalDepth; }
+    public int getBucketCount() { return this.bucketCount; }
+    public int getTotalRecords() { return this.totalRecords; }
+
+    public Class<T> getRecordClass() {
+        return this.recordClass;
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.directoryChannel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Error closing directory: " + this.directoryFile.getName(), e);
+        } finally {
+            this.storage.close();
+        }
+    }
+}
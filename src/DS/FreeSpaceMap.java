@@ -0,0 +1,139 @@
+package DS;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// prazdne a ciastocne plne bloky su dve bitove mapy (2 bity na blok), plny blok nema nastaveny ziadny bit
+public class FreeSpaceMap {
+    private final BlockBitSet emptyBlocks;
+    private final BlockBitSet partialBlocks;
+
+    public FreeSpaceMap() {
+        this.emptyBlocks = new BlockBitSet();
+        this.partialBlocks = new BlockBitSet();
+    }
+
+    //volne miesto sa meria v bajtoch - ciastocne plny blok prijme aj zaznam najvacsej velkosti
+    public void update(int blockIndex, Block<?> block) {
+        if (block.getValidCount() == 0) {
+            this.markEmpty(blockIndex);
+        } else if (!block.isFull()) {
+            this.markPartial(blockIndex);
+        } else {
+            this.markFull(blockIndex);
+        }
+    }
+
+    public void markEmpty(int blockIndex) {
+        this.partialBlocks.clear(blockIndex);
+        this.emptyBlocks.set(blockIndex);
+    }
+
+    public void markPartial(int blockIndex) {
+        this.emptyBlocks.clear(blockIndex);
+        this.partialBlocks.set(blockIndex);
+    }
+
+    public void markFull(int blockIndex) {
+        this.emptyBlocks.clear(blockIndex);
+        this.partialBlocks.clear(blockIndex);
+    }
+
+    public void remove(int blockIndex) {
+        this.markFull(blockIndex);
+    }
+
+    public boolean isEmpty(int blockIndex) {
+        return this.emptyBlocks.get(blockIndex);
+    }
+
+    public boolean isPartial(int blockIndex) {
+        return this.partialBlocks.get(blockIndex);
+    }
+
+    //najnizsi ciastocne plny blok, inak najnizsi prazdny, inak -1
+    public int findBlockForInsert() {
+        int blockIndex = this.partialBlocks.first();
+        if (blockIndex < 0) {
+            blockIndex = this.emptyBlocks.first();
+        }
+        return blockIndex;
+    }
+
+    public int nextEmpty(int fromIndex) {
+        return this.emptyBlocks.nextSetBit(fromIndex);
+    }
+
+    public int nextPartial(int fromIndex) {
+        return this.partialBlocks.nextSetBit(fromIndex);
+    }
+
+    public int getEmptyCount() {
+        return this.emptyBlocks.cardinality();
+    }
+
+    public int getPartialCount() {
+        return this.partialBlocks.cardinality();
+    }
+
+    public void clear() {
+        this.emptyBlocks.clearAll();
+        this.partialBlocks.clearAll();
+    }
+
+    public void save(File file) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            writeBits(out, this.emptyBlocks);
+            writeBits(out, this.partialBlocks);
+        } catch (IOException e) {
+            throw new RuntimeException("Error saving free space map: " + file.getName(), e);
+        }
+    }
+
+    public boolean load(File file) {
+        if (!file.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            readBits(in, this.emptyBlocks);
+            readBits(in, this.partialBlocks);
+            return true;
+        } catch (IOException e) {
+            this.clear();
+            return false;
+        }
+    }
+
+    private static void writeBits(DataOutputStream out, BlockBitSet bits) throws IOException {
+        long[] words = bits.toLongArray();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static void readBits(DataInputStream in, BlockBitSet bits) throws IOException {
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        bits.loadLongArray(words);
+    }
+
+    public List<Integer> getEmptyBlocks() {
+        return toList(this.emptyBlocks);
+    }
+
+    public List<Integer> getPartialBlocks() {
+        return toList(this.partialBlocks);
+    }
+
+    private static List<Integer> toList(BlockBitSet bits) {
+        List<Integer> list = new ArrayList<>(bits.cardinality());
+        for (int i = bits.first(); i >= 0; i = bits.nextSetBit(i + 1)) {
+            list.add(i);
+        }
+        return list;
+    }
+}
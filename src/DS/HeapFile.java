@@ -1,237 +1,1203 @@
 package DS;
 
+import Interface.IBlockStorage;
+import Interface.IBufferManager;
+import Interface.IHeapFile;
 import Interface.IRecord;
+import Interface.IRecordPredicate;
+import Interface.IRelocationListener;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class HeapFile<T extends IRecord<T>> implements IHeapFile<T> {
+    public static final int DEFAULT_BUFFER_FRAMES = 64;
+    // kompakcia drzi pripnute dva bloky aj so susedmi v zoznamoch
+    private static final int MIN_BUFFER_FRAMES = 8;
+    // zmeneny blok a jeho susedia v starom a novom zozname volnych blokov
+    private static final int PINS_PER_BLOCK = 4;
+    private static final int BULK_WRITE_BYTES = 1024 * 1024;
+    private static final long CHECKPOINT_LOG_BYTES = 16L * 1024 * 1024;
+    private static final int SNAPSHOT_BUFFER_BYTES = 64 * 1024;
+    private static final int SNAPSHOT_MAGIC = 0x48534E50;
+    private static final int SNAPSHOT_VERSION = 2;
+
+    // superblok je stranka 0 datoveho suboru, blok i lezi na stranke i + 1
+    private static final int SUPERBLOCK_MAGIC = 0x48454150;
+    private static final int FORMAT_VERSION = 3;
+    private static final int SB_MAGIC = 0;
+    private static final int SB_VERSION = 4;
+    private static final int SB_BLOCK_SIZE = 8;
+    private static final int SB_TOTAL_BLOCKS = 12;
+    private static final int SB_TOTAL_RECORDS = 16;
+    private static final int SB_EMPTY_HEAD = 20;
+    private static final int SB_PARTIAL_HEAD = 24;
+    private static final int SB_CLEAN = 28;
+    private static final int SB_RECORD_SIZE = 32;
+    private static final int SUPERBLOCK_SIZE = 36;
+
+    private static final int EMPTY_LIST = 0;
+    private static final int PARTIAL_LIST = 1;
+    private static final int NO_LIST = -1;
 
-public class HeapFile<T extends IRecord<T>> {
     private final File dataFile;
-    private final File emptyBlocksFile;
-    private final File partialBlocksFile;
-    private final File headerFile;
+    private final IBlockStorage storage;
+    // null pri namapovanom subore
+    private final ReadAheadBlockStorage readAhead;
+    private final File freeSpaceMapFile;
+    private final File keyFilterFile;
+    private final WriteAheadLog wal;
+    private final Durability durability;
+    private final HeapFileMetrics metrics;
 
     private final Class<T> recordClass;
     private final int blockSize;
+    private final int recordSize;
+    private final IBufferManager<T> bufferManager;
+    // priame stranky pre bloky a superblok - bloky vyhodene z buffer managera sa recykluju aj so strankou
+    private final DirectBufferPool directBuffers;
+    private final ArrayDeque<Block<T>> freeBlocks;
+    private final int maxFreeBlocks;
+    private final ByteBuffer ioBuffer;
+
+    private final FreeSpaceMap freeSpaceMap;
+    // null, ak typ zaznamu nema hash kluca - findByKey potom prechadza vsetky bloky
+    private final BlockBloomFilter keyFilter;
+    private long keyFilterProbes;
 
-    private final LinkedList<Integer> emptyBlocks;
-    private final LinkedList<Integer> partiallyEmptyBlocks;
+    private final int[] listHeads;
+
+    // bloky zmenene aktualnou operaciou - ostavaju pripnute, kym sa operacia nezapise do logu
+    private int[] touchedIndexes;
+    private Block<T>[] touchedBlocks;
+    private int touchedCount;
+    private ByteBuffer walFrame;
+    // kolko blokov moze davka vkladani drzat pripnutych pred commitom - polovica buffer poolu
+    private final int maxBatchTouched;
 
     private int totalBlocks;
     private int totalRecords;
 
+    private volatile HeapFileScheduler<T> scheduler;
+
     public HeapFile(String baseFileName, Class<T> recordClass, int blockSize) {
+        this(baseFileName, recordClass, blockSize, DEFAULT_BUFFER_FRAMES);
+    }
+
+    public HeapFile(String baseFileName, Class<T> recordClass, int blockSize, int bufferFrames) {
+        this(baseFileName, recordClass, blockSize, bufferFrames, StorageMode.CHANNEL);
+    }
+
+    public HeapFile(String baseFileName, Class<T> recordClass, int blockSize, int bufferFrames, StorageMode storageMode) {
+        this(baseFileName, recordClass, blockSize, bufferFrames, storageMode, Durability.NONE);
+    }
+
+    public HeapFile(String baseFileName, Class<T> recordClass, int blockSize, int bufferFrames, StorageMode storageMode,
+                    Durability durability) {
+        if (blockSize < SUPERBLOCK_SIZE) {
+            throw new IllegalArgumentException("Block size must be at least " + SUPERBLOCK_SIZE + " bytes");
+        }
+        // bez buffer poolu by sa kazda odopnuta stranka zapisala hned a pred kazdou by sa musel vynutit log
+        if (bufferFrames <= 0 && durability != Durability.NONE) {
+            throw new IllegalArgumentException("Durability " + durability + " needs a buffer pool with at least one frame");
+        }
         this.dataFile = new File(baseFileName);
-        this.emptyBlocksFile = new File(baseFileName + "_empty.txt");
-        this.partialBlocksFile = new File(baseFileName + "_partial.txt");
-        this.headerFile = new File(baseFileName + "_header.txt");
+        this.freeSpaceMapFile = new File(baseFileName + "_fsm.bin");
+        this.keyFilterFile = new File(baseFileName + "_bloom.bin");
 
         this.recordClass = recordClass;
         this.blockSize = blockSize;
-        this.emptyBlocks = new LinkedList<>();
-        this.partiallyEmptyBlocks = new LinkedList<>();
+        Block<T> prototype = new Block<>(recordClass, blockSize);
+        this.recordSize = prototype.getRecordSize();
+        this.freeSpaceMap = new FreeSpaceMap();
+        this.keyFilter = prototype.createRecord().hasKeyHash() ? new BlockBloomFilter(blockSize) : null;
+        this.listHeads = new int[]{Block.NO_BLOCK, Block.NO_BLOCK};
+        this.maxFreeBlocks = Math.max(bufferFrames, MIN_BUFFER_FRAMES);
+        this.directBuffers = new DirectBufferPool(blockSize, this.maxFreeBlocks);
+        this.freeBlocks = new ArrayDeque<>();
+        this.ioBuffer = this.directBuffers.acquire();
+        this.durability = durability;
+        this.touchedIndexes = new int[MIN_BUFFER_FRAMES];
+        this.touchedBlocks = Block.newArray(MIN_BUFFER_FRAMES);
+        this.walFrame = ByteBuffer.allocate((MIN_BUFFER_FRAMES + 1) * (Integer.BYTES + blockSize));
+        this.maxBatchTouched = (bufferFrames > 0 ? Math.max(bufferFrames, MIN_BUFFER_FRAMES) : DEFAULT_BUFFER_FRAMES) / 2;
+        if (bufferFrames > 0) {
+            this.bufferManager = new ClockBufferPool<>(Math.max(bufferFrames, MIN_BUFFER_FRAMES), this::readBlockFromFile,
+                    this::createEmptyBlock, this::writeBlockToFile, this::recycleBlock);
+        } else {
+            this.bufferManager = new NoBufferManager<>(this::readBlockFromFile,
+                    this::createEmptyBlock, this::writeBlockToFile, this::recycleBlock);
+        }
+
+        this.metrics = new HeapFileMetrics(new MetricsState(this));
+        IBlockStorage metered = new MeteredBlockStorage(switch (storageMode) {
+            case CHANNEL -> new ChannelBlockStorage(this.dataFile, blockSize);
+            case MAPPED -> new MappedBlockStorage(this.dataFile, blockSize);
+        }, this.metrics, blockSize);
+        // namapovany subor cita dopredu uz operacny system pri vypadkoch stranok
+        if (storageMode == StorageMode.CHANNEL) {
+            this.readAhead = new ReadAheadBlockStorage(metered, blockSize, () -> pageOf(this.totalBlocks));
+            this.storage = this.readAhead;
+        } else {
+            this.readAhead = null;
+            this.storage = metered;
+        }
 
-        if (this.dataFile.exists()) {
-            this.loadLists();
-            this.loadHeader();
+        File walFile = new File(baseFileName + "_wal.log");
+        if (durability != Durability.NONE) {
+            this.wal = WriteAheadLog.open(walFile, blockSize, durability);
+            this.wal.recover(this.storage);
         } else {
-            this.saveHeader();
-            this.saveLists();
+            this.wal = null;
+            if (walFile.length() > 0) {
+                try (WriteAheadLog leftover = WriteAheadLog.open(walFile, blockSize, Durability.NONE)) {
+                    leftover.recover(this.storage);
+                }
+            }
+            walFile.delete();
+        }
+
+        boolean existed = this.dataFile.length() > 0;
+
+        boolean clean = false;
+        if (existed) {
+            clean = this.readSuperblock();
         }
+        if (existed && !clean && this.wal == null) {
+            this.recoverByScan();
+        } else {
+            if (!clean || !this.freeSpaceMap.load(this.freeSpaceMapFile)) {
+                this.rebuildFreeSpaceMap();
+            }
+            if (this.keyFilter != null && (!clean || !this.keyFilter.load(this.keyFilterFile, this.totalBlocks))) {
+                this.rebuildKeyFilter();
+            }
+        }
+        // kym sa subor korektne nezatvori, snapshot mapy volneho miesta neplati
+        this.writeSuperblock(false);
+        this.metrics.register(this.dataFile);
     }
 
+    @Override
     public int insertRecord(T record) {
-        int blockIndex;
+        long start = System.nanoTime();
+        int blockIndex = this.insert(record);
+        this.metrics.recordInsert(System.nanoTime() - start);
+        return blockIndex;
+    }
 
-        if (!this.partiallyEmptyBlocks.isEmpty()) {
-            blockIndex = this.partiallyEmptyBlocks.removeFirst();
-        } else if (!this.emptyBlocks.isEmpty()) {
-            blockIndex = this.emptyBlocks.removeFirst();
-        } else {
+    private int insert(T record) {
+        int blockIndex = this.freeSpaceMap.findBlockForInsert();
+        if (blockIndex < 0) {
             blockIndex = this.totalBlocks;
         }
 
         Block<T> block;
+        int oldList;
         if (blockIndex < this.totalBlocks) {
-            block = this.getBlock(blockIndex);
+            block = this.bufferManager.pin(blockIndex);
+            oldList = this.listOf(block);
         } else {
-            block = new Block<>(this.recordClass, this.blockSize);
+            block = this.bufferManager.pinNew(blockIndex);
+            oldList = NO_LIST;
         }
 
         block.addRecord(record);
+        this.addKey(blockIndex, record);
 
-        this.updateListsAfterInsert(blockIndex, block);
+        this.updateLists(blockIndex, block, oldList);
 
-        this.writeBlockToFile(block, blockIndex);
+        this.markDirty(blockIndex, block);
         if (blockIndex == this.totalBlocks) {
             this.totalBlocks++;
         }
         this.totalRecords++;
+        this.commitOperation();
 
-        this.saveLists();
-        this.saveHeader();
         return blockIndex;
     }
 
+    //vrati index bloku pre kazdy vlozeny zaznam v poradi, v akom ich vydal iterator
+    public int[] insertAll(Iterable<T> records) {
+        Iterator<T> iterator = records.iterator();
+        int[] blockIndexes = new int[64];
+        int count = 0;
+
+        // najprv sa doplnia existujuce ciastocne plne a prazdne bloky
+        int blockIndex;
+        while (iterator.hasNext() && (blockIndex = this.freeSpaceMap.findBlockForInsert()) >= 0) {
+            Block<T> block = this.bufferManager.pin(blockIndex);
+            int oldList = this.listOf(block);
+            while (iterator.hasNext() && !block.isFull()) {
+                T record = iterator.next();
+                block.addRecord(record);
+                this.addKey(blockIndex, record);
+                blockIndexes = ensureCapacity(blockIndexes, count);
+                blockIndexes[count++] = blockIndex;
+                this.totalRecords++;
+            }
+            this.updateLists(blockIndex, block, oldList);
+            this.markDirty(blockIndex, block);
+            this.commitOperation();
+        }
+
+        // zvysok ide do novych blokov, ktore sa zapisuju sekvencne po davkach mimo logu,
+        // preto sa pred nimi spravi checkpoint a po nich fsync datoveho suboru
+        if (iterator.hasNext()) {
+            if (this.wal != null) {
+                this.checkpoint();
+            }
+            int blocksPerWrite = Math.max(1, BULK_WRITE_BYTES / this.blockSize);
+            ByteBuffer bulkBuffer = ByteBuffer.allocate(blocksPerWrite * this.blockSize);
+            Block<T> block = this.createEmptyBlock();
+            int firstBufferedBlock = this.totalBlocks;
+            int bufferedBlocks = 0;
+            while (iterator.hasNext()) {
+                block.reset();
+                blockIndex = this.totalBlocks;
+                while (iterator.hasNext() && !block.isFull()) {
+                    T record = iterator.next();
+                    block.addRecord(record);
+                    this.addKey(blockIndex, record);
+                    blockIndexes = ensureCapacity(blockIndexes, count);
+                    blockIndexes[count++] = blockIndex;
+                    this.totalRecords++;
+                }
+                this.updateLists(blockIndex, block, NO_LIST);
+                block.writeTo(bulkBuffer, bufferedBlocks * this.blockSize);
+                bufferedBlocks++;
+                this.totalBlocks++;
+
+                if (bufferedBlocks == blocksPerWrite || !iterator.hasNext()) {
+                    bulkBuffer.clear().limit(bufferedBlocks * this.blockSize);
+                    this.storage.writeBlocks(pageOf(firstBufferedBlock), bulkBuffer);
+                    firstBufferedBlock = this.totalBlocks;
+                    bufferedBlocks = 0;
+                }
+            }
+            this.recycleBlock(block);
+            if (this.wal != null) {
+                this.storage.force();
+            }
+        }
+
+        if (this.wal != null) {
+            this.commitOperation();
+        } else {
+            this.writeSuperblock(false);
+        }
+        return Arrays.copyOf(blockIndexes, count);
+    }
+
+    //zapise len platne zaznamy v poradi blokov, kazdy s 2-bajtovou dlzkou, skomprimovane Deflaterom
+    //pamat nezavisi od velkosti suboru
+    //vrati pocet zapisanych zaznamov, vystupny stream ostava otvoreny
+    public int exportSnapshot(OutputStream output) {
+        this.bufferManager.flush();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DeflaterOutputStream compressed = new DeflaterOutputStream(output, deflater, SNAPSHOT_BUFFER_BYTES);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(compressed, SNAPSHOT_BUFFER_BYTES));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(this.recordSize);
+            out.writeInt(this.totalRecords);
+
+            int blocksPerRead = Math.max(1, BULK_WRITE_BYTES / this.blockSize);
+            ByteBuffer window = ByteBuffer.allocate(blocksPerRead * this.blockSize);
+            Block<T> block = this.createEmptyBlock();
+            byte[] recordBytes = new byte[this.recordSize];
+            int exported = 0;
+            for (int first = 0; first < this.totalBlocks; first += blocksPerRead) {
+                int count = Math.min(blocksPerRead, this.totalBlocks - first);
+                window.clear().limit(count * this.blockSize);
+                this.storage.readBlocks(pageOf(first), window);
+                for (int i = 0; i < count; i++) {
+                    block.readFrom(window, i * this.blockSize);
+                    for (int slot = 0; slot < block.getValidCount(); slot++) {
+                        int length = block.copyRecordBytes(slot, recordBytes, 0);
+                        out.writeShort(length);
+                        out.write(recordBytes, 0, length);
+                        exported++;
+                    }
+                }
+            }
+            this.recycleBlock(block);
+            if (exported != this.totalRecords) {
+                throw new IllegalStateException("Found " + exported + " records, superblock says " + this.totalRecords);
+            }
+            out.flush();
+            compressed.finish();
+            output.flush();
+            return exported;
+        } catch (IOException e) {
+            throw new RuntimeException("Error exporting snapshot of " + this.dataFile.getName(), e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    //zaznamy zo snapshotu sa pridaju za koniec suboru do uplne zaplnenych blokov, ktore sa zapisuju sekvencne
+    //ako v insertAll; ak stream skonci predcasne, subor ostane konzistentny so zaznamami zo zapisanych blokov
+    //vrati pocet nacitanych zaznamov, vstupny stream ostava otvoreny
+    public int importSnapshot(InputStream input) {
+        Inflater inflater = new Inflater();
+        int imported = 0;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new InflaterInputStream(input, inflater, SNAPSHOT_BUFFER_BYTES), SNAPSHOT_BUFFER_BYTES));
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IllegalStateException("Stream is not a heap file snapshot of version " + SNAPSHOT_VERSION);
+            }
+            int snapshotRecordSize = in.readInt();
+            if (snapshotRecordSize != this.recordSize) {
+                throw new IllegalStateException("Snapshot stores records of " + snapshotRecordSize + " bytes");
+            }
+            int remaining = in.readInt();
+
+            if (this.wal != null) {
+                this.checkpoint();
+            }
+            int blocksPerWrite = Math.max(1, BULK_WRITE_BYTES / this.blockSize);
+            ByteBuffer bulkBuffer = ByteBuffer.allocate(blocksPerWrite * this.blockSize);
+            Block<T> block = this.createEmptyBlock();
+            byte[] recordBytes = new byte[this.recordSize];
+            int firstBufferedBlock = this.totalBlocks;
+            int bufferedBlocks = 0;
+            try {
+                while (remaining > 0) {
+                    block.reset();
+                    while (remaining > 0 && !block.isFull()) {
+                        int length = in.readUnsignedShort();
+                        if (length > this.recordSize) {
+                            throw new IllegalStateException("Snapshot record of " + length + " bytes exceeds " + this.recordSize);
+                        }
+                        in.readFully(recordBytes, 0, length);
+                        block.addRecordBytes(recordBytes, 0, length);
+                        remaining--;
+                    }
+                    // blok sa zapocita az ked je cely nacitany
+                    this.rebuildKeys(this.totalBlocks, block);
+                    this.updateLists(this.totalBlocks, block, NO_LIST);
+                    block.writeTo(bulkBuffer, bufferedBlocks * this.blockSize);
+                    bufferedBlocks++;
+                    this.totalBlocks++;
+                    this.totalRecords += block.getValidCount();
+                    imported += block.getValidCount();
+
+                    if (bufferedBlocks == blocksPerWrite) {
+                        bulkBuffer.clear().limit(bufferedBlocks * this.blockSize);
+                        this.storage.writeBlocks(pageOf(firstBufferedBlock), bulkBuffer);
+                        firstBufferedBlock = this.totalBlocks;
+                        bufferedBlocks = 0;
+                    }
+                }
+            } finally {
+                this.recycleBlock(block);
+                if (bufferedBlocks > 0) {
+                    bulkBuffer.clear().limit(bufferedBlocks * this.blockSize);
+                    this.storage.writeBlocks(pageOf(firstBufferedBlock), bulkBuffer);
+                }
+                // hlava zoznamu, pred ktoru sa zaradil posledny neuplny blok, je pripnuta a zapise ju az commit
+                if (this.wal != null) {
+                    this.storage.force();
+                }
+                this.commitOperation();
+            }
+            return imported;
+        } catch (IOException e) {
+            throw new RuntimeException("Error importing snapshot into " + this.dataFile.getName()
+                    + " after " + imported + " records", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        return size < array.length ? array : Arrays.copyOf(array, array.length * 2);
+    }
+
+    @Override
     public boolean deleteRecord(int index, T record) {
+        long start = System.nanoTime();
+        boolean deleted = this.delete(index, record);
+        this.metrics.recordDelete(System.nanoTime() - start);
+        return deleted;
+    }
+
+    private boolean delete(int index, T record) {
         if (index < 0 || index >= this.totalBlocks) {
             return false;
         }
 
-        Block<T> block = this.getBlock(index);
+        Block<T> block = this.bufferManager.pin(index);
+        int oldList = this.listOf(block);
         T removed = block.removeRecord(record);
 
         if (removed == null) {
+            this.bufferManager.unpin(index, false);
             return false;
         }
 
         this.totalRecords--;
+        this.rebuildKeys(index, block);
 
-        this.updateListsAfterDelete(index, block);
-        this.writeBlockToFile(block, index);
+        this.updateLists(index, block, oldList);
+        this.markDirty(index, block);
+        this.commitOperation();
 
         this.trimTrailingEmptyBlocks();
 
-        this.saveLists();
-        this.saveHeader();
-
         return true;
     }
 
 
+    @Override
     public T findRecord(int index, T record) {
+        long start = System.nanoTime();
+        T copy = this.find(index, record);
+        this.metrics.recordFind(System.nanoTime() - start);
+        return copy;
+    }
+
+    private T find(int index, T record) {
         if (index < 0 || index >= this.totalBlocks) {
             return null;
         }
 
-        Block<T> block = this.getBlock(index);
-        return block.getCopyOfRecord(record);
+        Block<T> block = this.bufferManager.pin(index);
+        T copy = block.getCopyOfRecord(record);
+        this.bufferManager.unpin(index, false);
+        return copy;
+    }
+
+    //hlada zaznam podla kluca bez indexu bloku - citaju sa len bloky, ktorych Bloom filter kluc moze obsahovat
+    public T findByKey(T key) {
+        int hash = this.keyFilter != null ? key.getHash() : 0;
+        for (int i = 0; i < this.totalBlocks; i++) {
+            if (this.keyFilter != null && !this.keyFilter.mightContain(i, hash)) {
+                continue;
+            }
+            this.keyFilterProbes++;
+            T copy = this.find(i, key);
+            if (copy != null) {
+                return copy;
+            }
+        }
+        return null;
+    }
+
+    private void addKey(int blockIndex, T record) {
+        if (this.keyFilter != null) {
+            this.keyFilter.add(blockIndex, record.getHash());
+        }
+    }
+
+    //po mazani sa bity zmazaneho kluca nedaju odobrat, filter bloku sa preto prepocita zo zvysnych zaznamov
+    private void rebuildKeys(int blockIndex, Block<T> block) {
+        if (this.keyFilter != null) {
+            this.keyFilter.rebuild(blockIndex, block);
+        }
+    }
+
+    //po nekorektnom zatvoreni sa filter poskladava sekvencnym citanim vsetkych blokov
+    private void rebuildKeyFilter() {
+        this.keyFilter.clearAll();
+        int blocksPerRead = Math.max(1, BULK_WRITE_BYTES / this.blockSize);
+        ByteBuffer window = ByteBuffer.allocate(blocksPerRead * this.blockSize);
+        Block<T> block = this.createEmptyBlock();
+        for (int first = 0; first < this.totalBlocks; first += blocksPerRead) {
+            int count = Math.min(blocksPerRead, this.totalBlocks - first);
+            window.clear().limit(count * this.blockSize);
+            this.storage.readBlocks(pageOf(first), window);
+            for (int i = 0; i < count; i++) {
+                block.readFrom(window, i * this.blockSize);
+                this.keyFilter.rebuild(first + i, block);
+            }
+        }
+        this.recycleBlock(block);
+    }
+
+    public int compact(int budget) {
+        return this.compact(budget, null);
+    }
+
+    //presuva zaznamy z posledneho bloku do najnizsich blokov s volnym miestom a odreze prazdny koniec suboru,
+    //presun medzi dvojicou blokov je jeden commit, takze sa da volat po malych krokoch medzi beznymi operaciami
+    //vrati pocet presunutych zaznamov (najviac budget), 0 znamena, ze subor sa uz zmensit neda
+    public int compact(int budget, IRelocationListener<T> listener) {
+        int moved = 0;
+        List<T> relocated = new ArrayList<>();
+        while (moved < budget && this.totalBlocks > 0) {
+            int source = this.totalBlocks - 1;
+            int target = this.compactionTarget(source);
+            if (target < 0) {
+                break;
+            }
+
+            Block<T> sourceBlock = this.bufferManager.pin(source);
+            int sourceList = this.listOf(sourceBlock);
+            Block<T> targetBlock = this.bufferManager.pin(target);
+            int targetList = this.listOf(targetBlock);
+
+            relocated.clear();
+            while (moved < budget && sourceBlock.getValidCount() > 0
+                    && !targetBlock.isFull()) {
+                T record = sourceBlock.getRecordAt(sourceBlock.getValidCount() - 1).createCopy();
+                sourceBlock.removeRecord(record);
+                targetBlock.addRecord(record);
+                this.addKey(target, record);
+                relocated.add(record);
+                moved++;
+            }
+
+            this.rebuildKeys(source, sourceBlock);
+            this.updateLists(source, sourceBlock, sourceList);
+            this.markDirty(source, sourceBlock);
+            this.updateLists(target, targetBlock, targetList);
+            this.markDirty(target, targetBlock);
+            this.commitOperation();
+            this.trimTrailingEmptyBlocks();
+
+            if (listener != null) {
+                for (T record : relocated) {
+                    listener.recordMoved(record, source, target);
+                }
+            }
+        }
+        return moved;
+    }
+
+    //najnizsi ciastocne plny blok pred zdrojovym, inak najnizsi prazdny pred nim, inak -1
+    private int compactionTarget(int source) {
+        int target = this.freeSpaceMap.nextPartial(0);
+        if (target < 0 || target >= source) {
+            target = this.freeSpaceMap.nextEmpty(0);
+        }
+        return target >= 0 && target < source ? target : -1;
+    }
+
+    //asynchronne operacie vykonava jedno virtualne vlakno, ktore spaja poziadavky na rovnaky blok,
+    //kym cakaju na spracovanie, nesmu sa subezne volat synchronne metody
+    public CompletableFuture<Integer> insertAsync(T record) {
+        return this.scheduler().submit(HeapFileScheduler.Kind.INSERT, Block.NO_BLOCK, record);
+    }
+
+    public CompletableFuture<T> findAsync(int index, T record) {
+        return this.scheduler().submit(HeapFileScheduler.Kind.FIND, index, record);
+    }
+
+    public CompletableFuture<Boolean> deleteAsync(int index, T record) {
+        return this.scheduler().submit(HeapFileScheduler.Kind.DELETE, index, record);
+    }
+
+    private synchronized HeapFileScheduler<T> scheduler() {
+        if (this.scheduler == null) {
+            this.scheduler = new HeapFileScheduler<>(this);
+        }
+        return this.scheduler;
+    }
+
+    //hladania a mazania v jednom bloku - blok sa pripne raz a ak sa zmenil, zapise sa jednym commitom
+    //operacia je hotova, ked je jej vysledok konecny - hladanie hned, mazanie az po commite
+    //latencia operacie sa meria od zaciatku skupiny po jej dokoncenie
+    boolean applyBlockOperations(int index, List<HeapFileScheduler.Operation<T>> operations) {
+        long start = System.nanoTime();
+        if (index < 0 || index >= this.totalBlocks) {
+            for (HeapFileScheduler.Operation<T> operation : operations) {
+                operation.result = operation.kind == HeapFileScheduler.Kind.DELETE ? Boolean.FALSE : null;
+                this.finishOperation(operation, start);
+            }
+            return false;
+        }
+
+        Block<T> block = this.bufferManager.pin(index);
+        int oldList = this.listOf(block);
+        boolean changed = false;
+        for (HeapFileScheduler.Operation<T> operation : operations) {
+            try {
+                if (operation.kind == HeapFileScheduler.Kind.DELETE) {
+                    boolean removed = block.removeRecord(operation.record) != null;
+                    operation.result = removed;
+                    if (removed) {
+                        this.totalRecords--;
+                        changed = true;
+                        continue;
+                    }
+                } else {
+                    operation.result = block.getCopyOfRecord(operation.record);
+                }
+            } catch (RuntimeException e) {
+                operation.error = e;
+            }
+            this.finishOperation(operation, start);
+        }
+
+        if (!changed) {
+            this.bufferManager.unpin(index, false);
+            return false;
+        }
+        this.rebuildKeys(index, block);
+        this.updateLists(index, block, oldList);
+        this.markDirty(index, block);
+        this.commitOperation();
+        for (HeapFileScheduler.Operation<T> operation : operations) {
+            if (!operation.finished) {
+                this.finishOperation(operation, start);
+            }
+        }
+        this.trimTrailingEmptyBlocks();
+        return true;
+    }
+
+    //vkladania z jednej davky - do kazdeho bloku ide tolko zaznamov, kolko sa zmesti, a cela davka je
+    //jeden commit; commit skor len vtedy, ked by dalsi blok so susedmi v zoznamoch presiahol limit pripnutych
+    //vkladanie je hotove az po commite, ktory ho zapisal - vrati pocet zapisanych blokov
+    int insertCoalesced(List<HeapFileScheduler.Operation<T>> inserts) {
+        long start = System.nanoTime();
+        int writes = 0;
+        int next = 0;
+        int committed = 0;
+        while (next < inserts.size()) {
+            if (this.touchedCount + PINS_PER_BLOCK > this.maxBatchTouched) {
+                this.commitOperation();
+                committed = this.finishInserts(inserts, committed, next, start);
+            }
+            int blockIndex = this.freeSpaceMap.findBlockForInsert();
+            if (blockIndex < 0) {
+                blockIndex = this.totalBlocks;
+            }
+
+            Block<T> block;
+            int oldList;
+            if (blockIndex < this.totalBlocks) {
+                block = this.bufferManager.pin(blockIndex);
+                oldList = this.listOf(block);
+            } else {
+                block = this.bufferManager.pinNew(blockIndex);
+                oldList = NO_LIST;
+            }
+
+            while (next < inserts.size() && !block.isFull()) {
+                HeapFileScheduler.Operation<T> operation = inserts.get(next++);
+                block.addRecord(operation.record);
+                this.addKey(blockIndex, operation.record);
+                operation.result = blockIndex;
+                this.totalRecords++;
+            }
+
+            this.updateLists(blockIndex, block, oldList);
+            this.markDirty(blockIndex, block);
+            if (blockIndex == this.totalBlocks) {
+                this.totalBlocks++;
+            }
+            writes++;
+        }
+        if (this.touchedCount > 0) {
+            this.commitOperation();
+        }
+        this.finishInserts(inserts, committed, next, start);
+        return writes;
+    }
+
+    private int finishInserts(List<HeapFileScheduler.Operation<T>> inserts, int from, int to, long start) {
+        for (int i = from; i < to; i++) {
+            this.finishOperation(inserts.get(i), start);
+        }
+        return to;
     }
 
-    private void updateListsAfterInsert(int index, Block<T> block) {
-        if (block.getValidCount() == block.getBlockFactor()) {
-            this.partiallyEmptyBlocks.remove(Integer.valueOf(index));
-        } else if (block.getValidCount() > 0 && block.getValidCount() < block.getBlockFactor()) {
-            if (!this.partiallyEmptyBlocks.contains(index))
-                this.partiallyEmptyBlocks.add(index);
-            this.emptyBlocks.remove(Integer.valueOf(index));
-        } else if (block.getValidCount() == 0) {
-            if (!this.emptyBlocks.contains(index))
-                this.emptyBlocks.add(index);
-            this.partiallyEmptyBlocks.remove(Integer.valueOf(index));
+    private void finishOperation(HeapFileScheduler.Operation<T> operation, long start) {
+        operation.finished = true;
+        long nanos = System.nanoTime() - start;
+        switch (operation.kind) {
+            case INSERT -> this.metrics.recordInsert(nanos);
+            case FIND -> this.metrics.recordFind(nanos);
+            case DELETE -> this.metrics.recordDelete(nanos);
         }
     }
 
-    private void updateListsAfterDelete(int index, Block<T> block) {
+    private int listOf(Block<T> block) {
         if (block.getValidCount() == 0) {
-            this.emptyBlocks.add(index);
-            this.partiallyEmptyBlocks.remove(Integer.valueOf(index));
-        } else if (block.getValidCount() < block.getBlockFactor()) {
-            if (!this.partiallyEmptyBlocks.contains(index))
-                this.partiallyEmptyBlocks.add(index);
+            return EMPTY_LIST;
+        }
+        // ciastocne plny je blok, do ktoreho sa zmesti aj zaznam najvacsej velkosti
+        if (!block.isFull()) {
+            return PARTIAL_LIST;
+        }
+        return NO_LIST;
+    }
+
+    private void updateLists(int index, Block<T> block, int oldList) {
+        int newList = this.listOf(block);
+        if (newList == oldList) {
+            return;
+        }
+        if (oldList != NO_LIST) {
+            this.unlink(index, block, oldList);
+        }
+        if (newList != NO_LIST) {
+            this.linkAtHead(index, block, newList);
+        }
+        this.freeSpaceMap.update(index, block);
+    }
+
+    private void unlink(int index, Block<T> block, int list) {
+        int previous = block.getPreviousBlock();
+        int next = block.getNextBlock();
+        if (previous != Block.NO_BLOCK) {
+            Block<T> previousBlock = this.bufferManager.pin(previous);
+            previousBlock.setNextBlock(next);
+            this.markDirty(previous, previousBlock);
+        } else {
+            this.listHeads[list] = next;
+        }
+        if (next != Block.NO_BLOCK) {
+            Block<T> nextBlock = this.bufferManager.pin(next);
+            nextBlock.setPreviousBlock(previous);
+            this.markDirty(next, nextBlock);
+        }
+        block.setPreviousBlock(Block.NO_BLOCK);
+        block.setNextBlock(Block.NO_BLOCK);
+    }
+
+    private void linkAtHead(int index, Block<T> block, int list) {
+        int head = this.listHeads[list];
+        block.setPreviousBlock(Block.NO_BLOCK);
+        block.setNextBlock(head);
+        if (head != Block.NO_BLOCK) {
+            Block<T> headBlock = this.bufferManager.pin(head);
+            headBlock.setPreviousBlock(index);
+            this.markDirty(head, headBlock);
         }
+        this.listHeads[list] = index;
     }
 
+    //subor sa skrati az po commite mensieho poctu blokov - inak by po pade superblok z logu ukazoval za koniec suboru
     private void trimTrailingEmptyBlocks() {
-        while (this.totalBlocks > 0 && this.emptyBlocks.contains(this.totalBlocks - 1)) {
-            this.truncateLastBlock();
-            this.emptyBlocks.remove(Integer.valueOf(this.totalBlocks));
+        int blocksBefore = this.totalBlocks;
+        while (this.totalBlocks > 0 && this.freeSpaceMap.isEmpty(this.totalBlocks - 1)) {
+            int last = this.totalBlocks - 1;
+            Block<T> block = this.bufferManager.pin(last);
+            this.unlink(last, block, EMPTY_LIST);
+            this.bufferManager.unpin(last, false);
+            this.dropLastBlock();
+            this.freeSpaceMap.remove(this.totalBlocks);
+            this.commitOperation();
+        }
+        if (this.totalBlocks < blocksBefore) {
+            if (this.wal != null) {
+                this.wal.sync();
+            }
+            this.storage.truncate(pageOf(this.totalBlocks));
+        }
+    }
+
+    private void markDirty(int index, Block<T> block) {
+        for (int i = 0; i < this.touchedCount; i++) {
+            if (this.touchedIndexes[i] == index) {
+                // druhe pripnutie v tej istej operacii - commit blok odopne ako spinavy, zapisat sa nesmie skor
+                this.bufferManager.unpin(index, false);
+                return;
+            }
+        }
+        if (this.touchedCount == this.touchedIndexes.length) {
+            this.touchedIndexes = Arrays.copyOf(this.touchedIndexes, this.touchedCount * 2);
+            this.touchedBlocks = Arrays.copyOf(this.touchedBlocks, this.touchedCount * 2);
+            this.walFrame = ByteBuffer.allocate((this.touchedIndexes.length + 1) * (Integer.BYTES + this.blockSize));
+        }
+        this.touchedIndexes[this.touchedCount] = index;
+        this.touchedBlocks[this.touchedCount] = block;
+        this.touchedCount++;
+    }
+
+    // zmenene bloky a superblok idu jednym ramcom do logu, az potom sa bloky odopnu
+    // a buffer pool ich moze zapisat do datoveho suboru
+    // bez logu ostanu bloky spinave v buffer poole a superblok sa zapise az pri flush alebo close,
+    // po pade sa subor obnovi prechodom blokov (recoverByScan)
+    private void commitOperation() {
+        if (this.wal != null) {
+            ByteBuffer frame = this.walFrame.clear();
+            for (int i = 0; i < this.touchedCount; i++) {
+                frame.putInt(pageOf(this.touchedIndexes[i]));
+                this.touchedBlocks[i].writeTo(frame, frame.position());
+                frame.position(frame.position() + this.blockSize);
+            }
+            frame.putInt(0);
+            this.fillSuperblock(frame, frame.position(), false);
+            frame.position(frame.position() + this.blockSize);
+            long lsn = this.wal.append(frame.flip());
+            for (int i = 0; i < this.touchedCount; i++) {
+                this.touchedBlocks[i].setPageLsn(lsn);
+            }
+            this.wal.commit(lsn);
+        }
+
+        for (int i = 0; i < this.touchedCount; i++) {
+            this.bufferManager.unpin(this.touchedIndexes[i], true);
+            this.touchedBlocks[i] = null;
         }
+        this.touchedCount = 0;
+
+        if (this.wal != null && this.wal.size() > CHECKPOINT_LOG_BYTES) {
+            this.checkpoint();
+        }
+    }
+
+    private void checkpoint() {
+        this.bufferManager.flush();
+        this.writeSuperblock(false);
+        this.storage.force();
+        this.wal.truncate();
     }
 
     private void writeBlockToFile(Block<T> block, int blockIndex) {
-        byte[] blockData = block.toByteArray();
-        try (RandomAccessFile raf = new RandomAccessFile(this.dataFile, "rw")) {
-            raf.seek((long) blockIndex * this.blockSize);
-            raf.write(blockData);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        // WAL pravidlo - stranka sa do datoveho suboru dostane az po zapise logu
+        if (this.wal != null) {
+            this.wal.flushTo(block.getPageLsn());
         }
+        this.storage.writeBlock(pageOf(blockIndex), block.page());
+    }
+
+    //zaznamy sa citaju po viacerych blokoch naraz, prazdne bloky sa preskakuju
+    //pocas prechadzania streamu sa subor nesmie menit
+    public Stream<T> scan() {
+        return this.scan(false);
+    }
+
+    //flyweight - vsetky prvky streamu su ta ista instancia, prepisana dalsim zaznamom
+    public Stream<T> scan(boolean flyweight) {
+        this.bufferManager.flush();
+        return StreamSupport.stream(new HeapFileSpliterator<>(this.storage, this.freeSpaceMap, this.recordClass,
+                this.blockSize, this.totalBlocks, this.totalRecords, flyweight), false);
+    }
+
+    //podmienka sa vyhodnocuje nad bajtmi zaznamu, dekoduju sa len vyhovujuce zaznamy
+    public List<T> parallelScan(IRecordPredicate predicate) {
+        return this.parallelScan(predicate, ForkJoinPool.commonPool());
     }
 
+    public List<T> parallelScan(IRecordPredicate predicate, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return this.parallelScan(predicate, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public List<T> parallelScan(Predicate<T> predicate) {
+        this.bufferManager.flush();
+        return ForkJoinPool.commonPool().invoke(new ParallelScanTask<>(this.storage, this.freeSpaceMap, this.recordClass,
+                this.blockSize, predicate, 0, this.totalBlocks));
+    }
+
+    private List<T> parallelScan(IRecordPredicate predicate, ForkJoinPool pool) {
+        this.bufferManager.flush();
+        return pool.invoke(new ParallelScanTask<>(this.storage, this.freeSpaceMap, this.recordClass, this.blockSize,
+                predicate, 0, this.totalBlocks));
+    }
+
+    //vrateny blok patri buffer managerovi a sluzi len na citanie - po dalsej operacii heap filu
+    //moze byt recyklovany pre iny blok, na dlhsie drzanie treba kopiu
+    @Override
     public Block<T> getBlock(int blockIndex) {
-        Block<T> block = new Block<>(this.recordClass, this.blockSize);
-        try (RandomAccessFile raf = new RandomAccessFile(this.dataFile, "r")) {
-            raf.seek((long) blockIndex * this.blockSize);
-            byte[] bytes = new byte[this.blockSize];
-            raf.readFully(bytes);
-            block.fromByteArray(bytes);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        Block<T> block = this.bufferManager.pin(blockIndex);
+        this.bufferManager.unpin(blockIndex, false);
+        return block;
+    }
+
+    public void flush() {
+        if (this.wal != null) {
+            this.checkpoint();
+            return;
+        }
+        this.bufferManager.flush();
+        this.writeSuperblock(false);
+    }
+
+    public void force() {
+        this.flush();
+        this.storage.force();
+    }
+
+    private Block<T> createEmptyBlock() {
+        Block<T> block = this.freeBlocks.pollLast();
+        if (block == null) {
+            return new Block<>(this.recordClass, this.blockSize, this.directBuffers.acquire());
         }
+        block.reset();
         return block;
     }
 
-    private void truncateLastBlock() {
-        try (RandomAccessFile raf = new RandomAccessFile(this.dataFile, "rw")) {
-            long newLength = Math.max(0, raf.length() - this.blockSize);
-            raf.setLength(newLength);
-            this.totalBlocks--;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    //blok sa cita priamo do svojej stranky, recyklovany blok sa pred tym nemusi nulovat
+    private Block<T> readBlockFromFile(int blockIndex) {
+        Block<T> block = this.freeBlocks.pollLast();
+        if (block == null) {
+            block = new Block<>(this.recordClass, this.blockSize, this.directBuffers.acquire());
         }
+        this.storage.readBlock(pageOf(blockIndex), block.page());
+        block.pageLoaded();
+        return block;
     }
 
-    private void saveHeader() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(this.headerFile))) {
-            pw.println(this.totalBlocks);
-            pw.println(this.totalRecords);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    //blok uz buffer manager ani operacia nedrzia - nad limit sa vrati len jeho stranka
+    private void recycleBlock(Block<T> block) {
+        if (this.freeBlocks.size() < this.maxFreeBlocks) {
+            this.freeBlocks.addLast(block);
+        } else {
+            this.directBuffers.release(block.page());
         }
     }
 
-    private void loadHeader() {
-        if (!this.headerFile.exists()) return;
-        try (BufferedReader br = new BufferedReader(new FileReader(this.headerFile))) {
-            this.totalBlocks = Integer.parseInt(br.readLine());
-            this.totalRecords = Integer.parseInt(br.readLine());
-        } catch (IOException | NumberFormatException e) {
-            throw new RuntimeException(e);
+    //metriky citaju stav priamo z poli - konstruktor ich vytvara skor, nez je subor (a pripadna podtrieda) hotovy
+    private static final class MetricsState implements HeapFileMetrics.FileState {
+        private final HeapFile<?> file;
+
+        MetricsState(HeapFile<?> file) {
+            this.file = file;
         }
+
+        @Override
+        public int totalBlocks() { return this.file.totalBlocks; }
+        @Override
+        public int totalRecords() { return this.file.totalRecords; }
+        @Override
+        public int emptyBlockCount() { return this.file.freeSpaceMap.getEmptyCount(); }
+        @Override
+        public int partialBlockCount() { return this.file.freeSpaceMap.getPartialCount(); }
+        @Override
+        public long cacheHits() { return this.file.bufferManager.getHits(); }
+        @Override
+        public long cacheMisses() { return this.file.bufferManager.getMisses(); }
+        @Override
+        public long logForces() { return this.file.wal == null ? 0 : this.file.wal.getForceCount(); }
     }
 
-    private void saveLists() {
-        this.saveListToFile(this.emptyBlocksFile, this.emptyBlocks);
-        this.saveListToFile(this.partialBlocksFile, this.partiallyEmptyBlocks);
+    static int pageOf(int blockIndex) {
+        return blockIndex + 1;
+    }
+
+    private void dropLastBlock() {
+        this.totalBlocks--;
+        if (this.keyFilter != null) {
+            this.keyFilter.clear(this.totalBlocks);
+        }
+        this.bufferManager.discard(this.totalBlocks);
+    }
+
+    private boolean readSuperblock() {
+        ByteBuffer superblock = this.ioBuffer.clear();
+        this.storage.readBlock(0, superblock);
+        if (superblock.getInt(SB_MAGIC) != SUPERBLOCK_MAGIC || superblock.getInt(SB_VERSION) != FORMAT_VERSION) {
+            throw new IllegalStateException("File " + this.dataFile.getName() + " is not a heap file of version " + FORMAT_VERSION);
+        }
+        if (superblock.getInt(SB_BLOCK_SIZE) != this.blockSize) {
+            throw new IllegalStateException("File " + this.dataFile.getName() + " uses block size " + superblock.getInt(SB_BLOCK_SIZE));
+        }
+        // zmena rozlozenia zaznamu by inak ticho precitala stare bajty v novom formate
+        if (superblock.getInt(SB_RECORD_SIZE) != this.recordSize) {
+            throw new IllegalStateException("File " + this.dataFile.getName() + " stores records of " + superblock.getInt(SB_RECORD_SIZE) + " bytes");
+        }
+        this.totalBlocks = superblock.getInt(SB_TOTAL_BLOCKS);
+        this.totalRecords = superblock.getInt(SB_TOTAL_RECORDS);
+        this.listHeads[EMPTY_LIST] = superblock.getInt(SB_EMPTY_HEAD);
+        this.listHeads[PARTIAL_LIST] = superblock.getInt(SB_PARTIAL_HEAD);
+        return superblock.getInt(SB_CLEAN) == 1;
     }
 
-    private void loadLists() {
-        this.loadListFromFile(this.emptyBlocksFile, this.emptyBlocks);
-        this.loadListFromFile(this.partialBlocksFile, this.partiallyEmptyBlocks);
+    private void writeSuperblock(boolean clean) {
+        this.fillSuperblock(this.ioBuffer, 0, clean);
+        this.storage.writeBlock(0, this.ioBuffer.clear());
+        this.metrics.recordMetadataFlush();
     }
 
-    private void saveListToFile(File file, List<Integer> list) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(file))) {
-            for (int i : list) {
-                pw.println(i);
+    private void fillSuperblock(ByteBuffer buffer, int offset, boolean clean) {
+        for (int i = 0; i < this.blockSize; i++) {
+            buffer.put(offset + i, (byte) 0);
+        }
+        buffer.putInt(offset + SB_MAGIC, SUPERBLOCK_MAGIC);
+        buffer.putInt(offset + SB_VERSION, FORMAT_VERSION);
+        buffer.putInt(offset + SB_BLOCK_SIZE, this.blockSize);
+        buffer.putInt(offset + SB_TOTAL_BLOCKS, this.totalBlocks);
+        buffer.putInt(offset + SB_TOTAL_RECORDS, this.totalRecords);
+        buffer.putInt(offset + SB_EMPTY_HEAD, this.listHeads[EMPTY_LIST]);
+        buffer.putInt(offset + SB_PARTIAL_HEAD, this.listHeads[PARTIAL_LIST]);
+        buffer.putInt(offset + SB_CLEAN, clean ? 1 : 0);
+        buffer.putInt(offset + SB_RECORD_SIZE, this.recordSize);
+    }
+
+    //po nekorektnom zatvoreni sa mapa volneho miesta poskladava zo zretazenych zoznamov
+    private void rebuildFreeSpaceMap() {
+        this.freeSpaceMap.clear();
+        int index = this.listHeads[EMPTY_LIST];
+        for (int steps = 0; index != Block.NO_BLOCK && steps < this.totalBlocks; steps++) {
+            this.freeSpaceMap.markEmpty(index);
+            index = this.nextInList(index);
+        }
+        index = this.listHeads[PARTIAL_LIST];
+        for (int steps = 0; index != Block.NO_BLOCK && steps < this.totalBlocks; steps++) {
+            this.freeSpaceMap.markPartial(index);
+            index = this.nextInList(index);
+        }
+    }
+
+    //bez logu superblok po pade nesedi s blokmi, ktore buffer pool medzitym zapisal - pocet blokov sa vezme
+    //z dlzky suboru ako v ConcurrentHeapFile, pocty, mapa volneho miesta a filter klucov sa poskladaju
+    //prechodom blokov, prazdny koniec sa odreze a zoznamy volnych blokov sa zretazia nanovo
+    private void recoverByScan() {
+        int fileBlocks = (int) Math.max(0, this.dataFile.length() / this.blockSize - 1);
+        int blocksPerRead = Math.max(1, BULK_WRITE_BYTES / this.blockSize);
+        ByteBuffer window = ByteBuffer.allocate(blocksPerRead * this.blockSize);
+        Block<T> block = this.createEmptyBlock();
+        this.freeSpaceMap.clear();
+        if (this.keyFilter != null) {
+            this.keyFilter.clearAll();
+        }
+        this.totalBlocks = 0;
+        this.totalRecords = 0;
+        for (int first = 0; first < fileBlocks; first += blocksPerRead) {
+            int count = Math.min(blocksPerRead, fileBlocks - first);
+            window.clear().limit(count * this.blockSize);
+            this.storage.readBlocks(pageOf(first), window);
+            for (int i = 0; i < count; i++) {
+                block.readFrom(window, i * this.blockSize);
+                this.freeSpaceMap.update(first + i, block);
+                if (this.keyFilter != null) {
+                    this.keyFilter.rebuild(first + i, block);
+                }
+                if (block.getValidCount() > 0) {
+                    this.totalRecords += block.getValidCount();
+                    this.totalBlocks = first + i + 1;
+                }
+            }
+        }
+        for (int i = this.totalBlocks; i < fileBlocks; i++) {
+            this.freeSpaceMap.remove(i);
+            if (this.keyFilter != null) {
+                this.keyFilter.clear(i);
             }
-        } catch (IOException e) {
-            throw new RuntimeException("Error saving list file: " + file.getName(), e);
         }
+        this.relinkFreeLists(window, block);
+        this.recycleBlock(block);
+        this.storage.truncate(pageOf(this.totalBlocks));
     }
 
-    private void loadListFromFile(File file, List<Integer> list) {
-        list.clear();
-        if (!file.exists()) return;
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                try {
-                    list.add(Integer.parseInt(line.trim()));
-                } catch (NumberFormatException ignored) {}
+    //bloky kazdeho zoznamu sa zretazia vzostupne, zapisuju sa len okna, v ktorych sa nejaky odkaz zmenil
+    private void relinkFreeLists(ByteBuffer window, Block<T> block) {
+        int blocksPerRead = window.capacity() / this.blockSize;
+        int[] previous = {Block.NO_BLOCK, Block.NO_BLOCK};
+        this.listHeads[EMPTY_LIST] = Block.NO_BLOCK;
+        this.listHeads[PARTIAL_LIST] = Block.NO_BLOCK;
+        for (int first = 0; first < this.totalBlocks; first += blocksPerRead) {
+            int count = Math.min(blocksPerRead, this.totalBlocks - first);
+            window.clear().limit(count * this.blockSize);
+            this.storage.readBlocks(pageOf(first), window);
+            boolean changed = false;
+            for (int i = 0; i < count; i++) {
+                int index = first + i;
+                int list;
+                int next;
+                if (this.freeSpaceMap.isEmpty(index)) {
+                    list = EMPTY_LIST;
+                    next = this.freeSpaceMap.nextEmpty(index + 1);
+                } else if (this.freeSpaceMap.isPartial(index)) {
+                    list = PARTIAL_LIST;
+                    next = this.freeSpaceMap.nextPartial(index + 1);
+                } else {
+                    continue;
+                }
+                next = next >= 0 ? next : Block.NO_BLOCK;
+                block.readFrom(window, i * this.blockSize);
+                if (block.getPreviousBlock() != previous[list] || block.getNextBlock() != next) {
+                    block.setPreviousBlock(previous[list]);
+                    block.setNextBlock(next);
+                    block.writeTo(window, i * this.blockSize);
+                    changed = true;
+                }
+                if (previous[list] == Block.NO_BLOCK) {
+                    this.listHeads[list] = index;
+                }
+                previous[list] = index;
+            }
+            if (changed) {
+                window.clear().limit(count * this.blockSize);
+                this.storage.writeBlocks(pageOf(first), window);
             }
-        } catch (IOException e) {
-            throw new RuntimeException("Error loading list file: " + file.getName(), e);
         }
     }
 
+    //volane z konstruktora - nie cez getBlock, ktory moze podtrieda prekryt
+    private int nextInList(int index) {
+        int next = this.bufferManager.pin(index).getNextBlock();
+        this.bufferManager.unpin(index, false);
+        return next;
+    }
+
     public int getTotalBlocks() { return this.totalBlocks; }
     public int getTotalRecords() { return this.totalRecords; }
-    public List<Integer> getEmptyBlocks() { return Collections.unmodifiableList(this.emptyBlocks); }
-    public List<Integer> getPartiallyEmptyBlocks() { return Collections.unmodifiableList(this.partiallyEmptyBlocks); }
+    public List<Integer> getEmptyBlocks() { return Collections.unmodifiableList(this.freeSpaceMap.getEmptyBlocks()); }
+    public List<Integer> getPartiallyEmptyBlocks() { return Collections.unmodifiableList(this.freeSpaceMap.getPartialBlocks()); }
+    public int getEmptyBlockCount() { return this.freeSpaceMap.getEmptyCount(); }
+    public int getPartiallyEmptyBlockCount() { return this.freeSpaceMap.getPartialCount(); }
 
+    public long getKeyFilterProbes() { return this.keyFilterProbes; }
+
+    public long getCacheHits() { return this.bufferManager.getHits(); }
+    public long getCacheMisses() { return this.bufferManager.getMisses(); }
+
+    public long getReadAheadHits() { return this.readAhead == null ? 0 : this.readAhead.getHits(); }
+    public long getReadAheadPages() { return this.readAhead == null ? 0 : this.readAhead.getPrefetchedPages(); }
+
+    public void setReadAheadEnabled(boolean enabled) {
+        if (this.readAhead != null) {
+            this.readAhead.setEnabled(enabled);
+        }
+    }
+
+    public long getDirectBufferAllocations() { return this.directBuffers.getAllocations(); }
+
+    public Durability getDurability() { return this.durability; }
+    public HeapFileMetrics getMetrics() { return this.metrics; }
+    long getLogForceCount() { return this.wal == null ? 0 : this.wal.getForceCount(); }
+
+    public int getAsyncQueueDepth() { return this.scheduler == null ? 0 : this.scheduler.getQueueDepth(); }
+    public long getAsyncBatchCount() { return this.scheduler == null ? 0 : this.scheduler.getBatchCount(); }
+    public double getAsyncCoalescingRatio() { return this.scheduler == null ? 1.0 : this.scheduler.getCoalescingRatio(); }
+
+    @Override
     public Class<T> getRecordClass() {
         return this.recordClass;
     }
+
+    @Override
+    public void close() {
+        if (this.scheduler != null) {
+            this.scheduler.close();
+        }
+        this.bufferManager.flush();
+        this.freeSpaceMap.save(this.freeSpaceMapFile);
+        if (this.keyFilter != null) {
+            this.keyFilter.save(this.keyFilterFile, this.totalBlocks);
+        }
+        this.metrics.recordMetadataFlush();
+        this.writeSuperblock(true);
+        if (this.wal != null) {
+            this.storage.force();
+            this.wal.truncate();
+            this.wal.close();
+        }
+        this.storage.close();
+        this.metrics.unregister();
+    }
 }
@@ -0,0 +1,151 @@
+package DS;
+
+import Interface.IHeapFileMetricsMXBean;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+// metriky jedneho heap filu - pocitadla su LongAdder, takze zapis je lacny aj z viacerych vlakien,
+// stav suboru (velkosti zoznamov, buffer pool) sa cita az pri dopyte
+public class HeapFileMetrics implements IHeapFileMetricsMXBean {
+    private final FileState fileState;
+
+    private final LongAdder blockReads;
+    private final LongAdder blockWrites;
+    private final LongAdder bytesRead;
+    private final LongAdder bytesWritten;
+    private final LongAdder metadataFlushes;
+
+    private final LatencyHistogram insertLatency;
+    private final LatencyHistogram findLatency;
+    private final LatencyHistogram deleteLatency;
+
+    private ObjectName objectName;
+
+    // zivy stav suboru - heap file ho cita zo svojich poli, nie cez verejne gettery, ktore moze podtrieda prekryt
+    interface FileState {
+        int totalBlocks();
+        int totalRecords();
+        int emptyBlockCount();
+        int partialBlockCount();
+        long cacheHits();
+        long cacheMisses();
+        long logForces();
+    }
+
+    HeapFileMetrics(FileState fileState) {
+        this.fileState = fileState;
+        this.blockReads = new LongAdder();
+        this.blockWrites = new LongAdder();
+        this.bytesRead = new LongAdder();
+        this.bytesWritten = new LongAdder();
+        this.metadataFlushes = new LongAdder();
+        this.insertLatency = new LatencyHistogram();
+        this.findLatency = new LatencyHistogram();
+        this.deleteLatency = new LatencyHistogram();
+    }
+
+    void recordRead(int blocks, int bytes) {
+        this.blockReads.add(blocks);
+        this.bytesRead.add(bytes);
+    }
+
+    void recordWrite(int blocks, int bytes) {
+        this.blockWrites.add(blocks);
+        this.bytesWritten.add(bytes);
+    }
+
+    void recordMetadataFlush() {
+        this.metadataFlushes.increment();
+    }
+
+    void recordInsert(long nanos) {
+        this.insertLatency.record(nanos);
+    }
+
+    void recordFind(long nanos) {
+        this.findLatency.record(nanos);
+    }
+
+    void recordDelete(long nanos) {
+        this.deleteLatency.record(nanos);
+    }
+
+    //ak uz MBean s rovnakym menom existuje (subor otvoreny dvakrat), metriky su dostupne len cez getMetrics
+    void register(File dataFile) {
+        try {
+            ObjectName name = new ObjectName("DS:type=HeapFile,name=" + ObjectName.quote(dataFile.getAbsolutePath()));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+                this.objectName = name;
+            }
+        } catch (JMException e) {
+            throw new RuntimeException("Cannot register metrics of " + dataFile.getName(), e);
+        }
+    }
+
+    void unregister() {
+        if (this.objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+        } catch (JMException e) {
+            throw new RuntimeException(e);
+        }
+        this.objectName = null;
+    }
+
+    @Override
+    public long getBlockReads() { return this.blockReads.sum(); }
+    @Override
+    public long getBlockWrites() { return this.blockWrites.sum(); }
+    @Override
+    public long getBytesRead() { return this.bytesRead.sum(); }
+    @Override
+    public long getBytesWritten() { return this.bytesWritten.sum(); }
+    @Override
+    public long getMetadataFlushes() { return this.metadataFlushes.sum(); }
+    @Override
+    public long getLogForces() { return this.fileState.logForces(); }
+
+    @Override
+    public int getTotalBlocks() { return this.fileState.totalBlocks(); }
+    @Override
+    public int getTotalRecords() { return this.fileState.totalRecords(); }
+    @Override
+    public int getEmptyBlockCount() { return this.fileState.emptyBlockCount(); }
+    @Override
+    public int getPartiallyEmptyBlockCount() { return this.fileState.partialBlockCount(); }
+
+    @Override
+    public long getCacheHits() { return this.fileState.cacheHits(); }
+    @Override
+    public long getCacheMisses() { return this.fileState.cacheMisses(); }
+
+    @Override
+    public double getCacheHitRatio() {
+        long hits = this.getCacheHits();
+        long total = hits + this.getCacheMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getInsertLatency() { return this.insertLatency.snapshot(); }
+    @Override
+    public LatencyHistogram.Snapshot getFindLatency() { return this.findLatency.snapshot(); }
+    @Override
+    public LatencyHistogram.Snapshot getDeleteLatency() { return this.deleteLatency.snapshot(); }
+
+    @Override
+    public void resetLatencies() {
+        this.insertLatency.reset();
+        this.findLatency.reset();
+        this.deleteLatency.reset();
+    }
+}
@@ -0,0 +1,204 @@
+package DS;
+
+import Interface.IRecord;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// asynchronne operacie nad heap filom - jedno virtualne vlakno vybera cakajuce poziadavky po davkach
+// a poziadavky na rovnaky blok spoji do jedneho citania a jedneho zapisu bloku
+class HeapFileScheduler<T extends IRecord<T>> implements AutoCloseable {
+    private static final int MAX_BATCH = 1024;
+
+    enum Kind { INSERT, FIND, DELETE, SHUTDOWN }
+
+    static final class Operation<T> {
+        final Kind kind;
+        final int blockIndex;
+        final T record;
+        final CompletableFuture<Object> future;
+        Object result;
+        // chyba len tejto operacie, napr. pri porovnani zaznamu
+        RuntimeException error;
+        // vysledok je konecny - zmena je uz zapisana commitom
+        boolean finished;
+
+        Operation(Kind kind, int blockIndex, T record) {
+            this.kind = kind;
+            this.blockIndex = blockIndex;
+            this.record = record;
+            this.future = new CompletableFuture<>();
+        }
+    }
+
+    private final HeapFile<T> heapFile;
+    private final LinkedBlockingQueue<Operation<T>> queue;
+    private final Thread dispatcher;
+    // vysledky sa dokoncuju mimo dispatchera, aby nadvazujuce kroky neblokovali spracovanie davok
+    private final ExecutorService completions;
+    private boolean closed;
+
+    private final AtomicLong mutations;
+    private final AtomicLong blockWrites;
+    private final AtomicLong batches;
+
+    HeapFileScheduler(HeapFile<T> heapFile) {
+        this.heapFile = heapFile;
+        this.queue = new LinkedBlockingQueue<>();
+        this.completions = Executors.newVirtualThreadPerTaskExecutor();
+        this.mutations = new AtomicLong();
+        this.blockWrites = new AtomicLong();
+        this.batches = new AtomicLong();
+        this.dispatcher = Thread.ofVirtual().name("heap-file-scheduler").start(this::dispatch);
+    }
+
+    @SuppressWarnings("unchecked")
+    <R> CompletableFuture<R> submit(Kind kind, int blockIndex, T record) {
+        Operation<T> operation = new Operation<>(kind, blockIndex, record);
+        synchronized (this) {
+            if (this.closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Heap file is closed"));
+            }
+            this.queue.add(operation);
+        }
+        return (CompletableFuture<R>) (CompletableFuture<?>) operation.future;
+    }
+
+    private void dispatch() {
+        List<Operation<T>> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(this.queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            this.queue.drainTo(batch, MAX_BATCH - 1);
+            running = this.process(batch);
+            batch.clear();
+        }
+    }
+
+    //davka sa spracuje po usekoch v poradi prichodu - vkladania idu spolu, kym ich neprerusi hladanie alebo mazanie,
+    //hladania a mazania useku sa zoskupia podla bloku; poziadavka tak nepredbehne skorsiu, ktora mohla zmenit
+    //jej vysledok; vkladania plnia bloky rovnako ako insertRecord - najprv ciastocne plne, potom prazdne, potom novy
+    private boolean process(List<Operation<T>> batch) {
+        Map<Integer, List<Operation<T>>> byBlock = new LinkedHashMap<>();
+        List<Operation<T>> inserts = new ArrayList<>();
+        List<Operation<T>> shutdown = new ArrayList<>(1);
+        for (Operation<T> operation : batch) {
+            switch (operation.kind) {
+                case INSERT -> {
+                    this.applyBlockRun(byBlock);
+                    inserts.add(operation);
+                }
+                case FIND, DELETE -> {
+                    this.applyInsertRun(inserts);
+                    byBlock.computeIfAbsent(operation.blockIndex, k -> new ArrayList<>()).add(operation);
+                }
+                case SHUTDOWN -> shutdown.add(operation);
+            }
+        }
+        this.applyBlockRun(byBlock);
+        this.applyInsertRun(inserts);
+        this.batches.incrementAndGet();
+
+        this.complete(shutdown, null);
+        return shutdown.isEmpty();
+    }
+
+    private void applyBlockRun(Map<Integer, List<Operation<T>>> byBlock) {
+        for (Map.Entry<Integer, List<Operation<T>>> entry : byBlock.entrySet()) {
+            List<Operation<T>> operations = entry.getValue();
+            try {
+                if (this.heapFile.applyBlockOperations(entry.getKey(), operations)) {
+                    this.blockWrites.incrementAndGet();
+                }
+                this.complete(operations, null);
+            } catch (RuntimeException e) {
+                this.complete(operations, e);
+            }
+            for (Operation<T> operation : operations) {
+                if (operation.kind == Kind.DELETE && Boolean.TRUE.equals(operation.result) && operation.finished) {
+                    this.mutations.incrementAndGet();
+                }
+            }
+        }
+        byBlock.clear();
+    }
+
+    private void applyInsertRun(List<Operation<T>> inserts) {
+        if (inserts.isEmpty()) {
+            return;
+        }
+        try {
+            this.blockWrites.addAndGet(this.heapFile.insertCoalesced(inserts));
+            this.complete(inserts, null);
+        } catch (RuntimeException e) {
+            this.complete(inserts, e);
+        }
+        for (Operation<T> operation : inserts) {
+            if (operation.finished) {
+                this.mutations.incrementAndGet();
+            }
+        }
+        inserts.clear();
+    }
+
+    //kazda operacia skonci podla seba - vlastnou chybou, vysledkom, ak uz bol konecny pred chybou davky,
+    //alebo chybou davky, ak jej zmena commitom neprezila
+    private void complete(List<Operation<T>> operations, RuntimeException failure) {
+        for (Operation<T> operation : operations) {
+            Object result = operation.result;
+            RuntimeException error = operation.error != null ? operation.error : operation.finished ? null : failure;
+            this.completions.execute(() -> {
+                if (error != null) {
+                    operation.future.completeExceptionally(error);
+                } else {
+                    operation.future.complete(result);
+                }
+            });
+        }
+    }
+
+    int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    long getBatchCount() {
+        return this.batches.get();
+    }
+
+    //kolko vlozeni a mazani pripadlo na jeden zapis bloku
+    double getCoalescingRatio() {
+        long writes = this.blockWrites.get();
+        return writes == 0 ? 1.0 : (double) this.mutations.get() / writes;
+    }
+
+    //dobehnu vsetky poziadavky zaradene pred zatvorenim
+    @Override
+    public void close() {
+        Operation<T> shutdown = new Operation<>(Kind.SHUTDOWN, Block.NO_BLOCK, null);
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.queue.add(shutdown);
+        }
+        shutdown.future.join();
+        try {
+            this.dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.completions.close();
+    }
+}
@@ -0,0 +1,104 @@
+package DS;
+
+import Interface.IBlockStorage;
+import Interface.IRecord;
+
+import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+class HeapFileSpliterator<T extends IRecord<T>> implements Spliterator<T> {
+    private static final int READ_AHEAD_BYTES = 256 * 1024;
+
+    private final IBlockStorage storage;
+    private final FreeSpaceMap freeSpaceMap;
+    private final int blockSize;
+    private final int endBlock;
+    private final ByteBuffer window;
+    private final Block<T> block;
+    private final T flyweight;
+
+    private int nextBlockToRead;
+    private int windowFirstBlock;
+    private int windowBlockCount;
+    private int currentBlock;
+    private int currentSlot;
+    private long remainingRecords;
+
+    HeapFileSpliterator(IBlockStorage storage, FreeSpaceMap freeSpaceMap, Class<T> recordClass, int blockSize,
+                        int totalBlocks, int totalRecords, boolean flyweight) {
+        this.storage = storage;
+        this.freeSpaceMap = freeSpaceMap;
+        this.blockSize = blockSize;
+        this.endBlock = totalBlocks;
+        this.window = ByteBuffer.allocate(Math.max(1, READ_AHEAD_BYTES / blockSize) * blockSize);
+        this.block = new Block<>(recordClass, blockSize);
+        this.flyweight = flyweight ? this.block.createRecord() : null;
+        this.remainingRecords = totalRecords;
+        // ziadny nacitany blok - prvy tryAdvance nacita okno
+        this.currentBlock = -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (this.currentBlock < 0 || this.currentSlot >= this.block.getValidCount()) {
+            if (!this.loadNextBlock()) {
+                return false;
+            }
+        }
+        T record = this.flyweight != null
+                ? this.block.readRecordInto(this.currentSlot, this.flyweight)
+                : (T) this.block.getRecordAt(this.currentSlot);
+        this.currentSlot++;
+        this.remainingRecords--;
+        action.accept(record);
+        return true;
+    }
+
+    private boolean loadNextBlock() {
+        int next = this.currentBlock < 0 ? this.windowFirstBlock : this.currentBlock + 1;
+        if (this.currentBlock < 0 || next >= this.windowFirstBlock + this.windowBlockCount) {
+            if (!this.readWindow()) {
+                return false;
+            }
+            next = this.windowFirstBlock;
+        }
+        this.block.readFrom(this.window, (next - this.windowFirstBlock) * this.blockSize);
+        this.currentBlock = next;
+        this.currentSlot = 0;
+        return true;
+    }
+
+    private boolean readWindow() {
+        int first = this.nextBlockToRead;
+        while (first < this.endBlock && this.freeSpaceMap.isEmpty(first)) {
+            first++;
+        }
+        if (first >= this.endBlock) {
+            return false;
+        }
+        int count = Math.min(this.window.capacity() / this.blockSize, this.endBlock - first);
+        this.window.clear().limit(count * this.blockSize);
+        this.storage.readBlocks(HeapFile.pageOf(first), this.window);
+        this.windowFirstBlock = first;
+        this.windowBlockCount = count;
+        this.nextBlockToRead = first + count;
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.remainingRecords;
+    }
+
+    @Override
+    public int characteristics() {
+        return SIZED | ORDERED | NONNULL;
+    }
+}
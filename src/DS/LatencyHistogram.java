@@ -0,0 +1,133 @@
+package DS;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// histogram latencii v style HDR - kazda mocnina dvojky ma 8 intervalov (presnost ~12 %),
+// zapis je len vypocet indexu a LongAdder.increment, takze nic nealokuje a vlakna si neprekazaju
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^41 ns je asi 36 minut, dlhsie hodnoty padnu do posledneho intervalu
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final LongAdder[] buckets;
+    private final LongAdder sum;
+    private final LongAccumulator max;
+
+    public LatencyHistogram() {
+        this.buckets = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+        this.sum = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    public void record(long nanos) {
+        this.buckets[indexOf(nanos)].increment();
+        this.sum.add(nanos);
+        this.max.accumulate(nanos);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    //najvyssia hodnota, ktora este padne do intervalu
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = SUB_BUCKET_BITS + (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (SUB_BUCKETS + subBucket) * width + width - 1;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : this.buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    //percentil v rozsahu 0 - 100, vysledok v nanosekundach
+    public long getValueAtPercentile(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    public Snapshot snapshot() {
+        long count = this.getCount();
+        return new Snapshot(count, count == 0 ? 0 : this.sum.sum() / (double) count,
+                this.getValueAtPercentile(50), this.getValueAtPercentile(99), this.getValueAtPercentile(99.9),
+                this.max.get());
+    }
+
+    public void reset() {
+        for (LongAdder bucket : this.buckets) {
+            bucket.reset();
+        }
+        this.sum.reset();
+        this.max.reset();
+    }
+
+    // hodnoty v mikrosekundach - cez JMX sa zobrazi ako jeden zlozeny atribut
+    public static final class Snapshot {
+        private final long count;
+        private final double meanMicros;
+        private final double p50Micros;
+        private final double p99Micros;
+        private final double p999Micros;
+        private final double maxMicros;
+
+        Snapshot(long count, double meanNanos, long p50, long p99, long p999, long max) {
+            this.count = count;
+            this.meanMicros = meanNanos / 1000.0;
+            this.p50Micros = p50 / 1000.0;
+            this.p99Micros = p99 / 1000.0;
+            this.p999Micros = p999 / 1000.0;
+            this.maxMicros = max / 1000.0;
+        }
+
+        public long getCount() { return this.count; }
+        public double getMeanMicros() { return this.meanMicros; }
+        public double getP50Micros() { return this.p50Micros; }
+        public double getP99Micros() { return this.p99Micros; }
+        public double getP999Micros() { return this.p999Micros; }
+        public double getMaxMicros() { return this.maxMicros; }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                    this.count, this.meanMicros, this.p50Micros, this.p99Micros, this.p999Micros, this.maxMicros);
+        }
+    }
+}
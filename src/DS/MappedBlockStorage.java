@@ -0,0 +1,184 @@
+package DS;
+
+import Interface.IBlockStorage;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// subor je namapovany po segmentoch pevnej velkosti, pocas behu je jeho dlzka zarovnana na segmenty
+// a az pri zatvoreni sa skrati na skutocny pocet blokov
+public class MappedBlockStorage implements IBlockStorage {
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    // MappedByteBuffer sa inak odmapuje az ked ho zozbiera garbage collector
+    private static final MethodHandle INVOKE_CLEANER = findCleaner();
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final int blocksPerSegment;
+    private final long segmentSize;
+    private final List<MappedByteBuffer> segments;
+    private int blockCount;
+
+    public MappedBlockStorage(File file, int blockSize) {
+        this(file, blockSize, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public MappedBlockStorage(File file, int blockSize, int segmentBytes) {
+        this.blockSize = blockSize;
+        this.blocksPerSegment = Math.max(1, segmentBytes / blockSize);
+        this.segmentSize = (long) this.blocksPerSegment * blockSize;
+        this.segments = new ArrayList<>();
+        try {
+            this.channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.blockCount = (int) (this.channel.size() / blockSize);
+            this.ensureMapped(this.blockCount - 1);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot map data file: " + file.getName(), e);
+        }
+    }
+
+    @Override
+    public void readBlock(int blockIndex, ByteBuffer destination) {
+        this.readBlocks(blockIndex, destination);
+    }
+
+    @Override
+    public void readBlocks(int firstBlockIndex, ByteBuffer destination) {
+        long position = (long) firstBlockIndex * this.blockSize;
+        if (position + destination.remaining() > (long) this.blockCount * this.blockSize) {
+            throw new RuntimeException(new EOFException("Block " + firstBlockIndex + " is beyond the end of the data file"));
+        }
+        while (destination.hasRemaining()) {
+            int segmentIndex = (int) (position / this.segmentSize);
+            int offset = (int) (position % this.segmentSize);
+            int length = (int) Math.min(destination.remaining(), this.segmentSize - offset);
+            destination.put(destination.position(), this.segments.get(segmentIndex), offset, length);
+            destination.position(destination.position() + length);
+            position += length;
+        }
+    }
+
+    @Override
+    public void writeBlock(int blockIndex, ByteBuffer source) {
+        this.writeBlocks(blockIndex, source);
+    }
+
+    @Override
+    public void writeBlocks(int firstBlockIndex, ByteBuffer source) {
+        long position = (long) firstBlockIndex * this.blockSize;
+        while (source.hasRemaining()) {
+            int segmentIndex = (int) (position / this.segmentSize);
+            try {
+                this.ensureMapped(segmentIndex * this.blocksPerSegment);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            int offset = (int) (position % this.segmentSize);
+            int length = (int) Math.min(source.remaining(), this.segmentSize - offset);
+            this.segments.get(segmentIndex).put(offset, source, source.position(), length);
+            source.position(source.position() + length);
+            position += length;
+        }
+        this.blockCount = (int) Math.max(this.blockCount, (position + this.blockSize - 1) / this.blockSize);
+    }
+
+    //Windows nedovoli skratit subor, kym je z neho nieco namapovane - odmapuju sa len segmenty za novym koncom,
+    //a ked sa pocet segmentov nemeni, subor sa neskracuje vobec
+    @Override
+    public void truncate(int blockCount) {
+        int oldBlockCount = this.blockCount;
+        this.blockCount = Math.min(this.blockCount, blockCount);
+        int neededSegments = (this.blockCount + this.blocksPerSegment - 1) / this.blocksPerSegment;
+        this.clearBlocks(this.blockCount, Math.min(oldBlockCount, neededSegments * this.blocksPerSegment));
+        if (neededSegments >= this.segments.size()) {
+            return;
+        }
+        this.unmapFrom(neededSegments);
+        try {
+            this.channel.truncate(neededSegments * this.segmentSize);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //bloky za koncom v ponechanom segmente ostavaju v subore az do zatvorenia - vynuluju sa, aby ich obnova
+    //po pade, ktora berie pocet blokov z dlzky suboru, nepovazovala za bloky so zaznamami
+    private void clearBlocks(int fromBlock, int toBlock) {
+        for (long position = (long) fromBlock * this.blockSize; position < (long) toBlock * this.blockSize; position += Long.BYTES) {
+            this.segments.get((int) (position / this.segmentSize)).putLong((int) (position % this.segmentSize), 0L);
+        }
+    }
+
+    @Override
+    public void force() {
+        for (MappedByteBuffer segment : this.segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.force();
+        this.unmapFrom(0);
+        try {
+            this.channel.truncate((long) this.blockCount * this.blockSize);
+            this.channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //bez cleanera sa segment odmapuje az pri garbage collection - na Linuxe skratenie aj tak prejde
+    //zdielane mapovanie zapisy pri odmapovani nestrati, force preto netreba
+    private void unmapFrom(int firstSegment) {
+        while (this.segments.size() > firstSegment) {
+            MappedByteBuffer segment = this.segments.remove(this.segments.size() - 1);
+            if (INVOKE_CLEANER != null) {
+                try {
+                    INVOKE_CLEANER.invokeExact((ByteBuffer) segment);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+    private static MethodHandle findCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void ensureMapped(int blockIndex) throws IOException {
+        if (blockIndex < 0) {
+            return;
+        }
+        int segmentIndex = blockIndex / this.blocksPerSegment;
+        while (this.segments.size() <= segmentIndex) {
+            long position = this.segments.size() * this.segmentSize;
+            this.segments.add(this.channel.map(FileChannel.MapMode.READ_WRITE, position, this.segmentSize));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package DS;
+
+import Interface.IBlockStorage;
+
+import java.nio.ByteBuffer;
+
+// obal nad ulozistom, ktory do metrik zapocita kazde citanie a zapis stranok
+class MeteredBlockStorage implements IBlockStorage {
+    private final IBlockStorage storage;
+    private final HeapFileMetrics metrics;
+    private final int blockSize;
+
+    MeteredBlockStorage(IBlockStorage storage, HeapFileMetrics metrics, int blockSize) {
+        this.storage = storage;
+        this.metrics = metrics;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public void readBlock(int blockIndex, ByteBuffer destination) {
+        int bytes = destination.remaining();
+        this.storage.readBlock(blockIndex, destination);
+        this.metrics.recordRead(1, bytes);
+    }
+
+    @Override
+    public void readBlocks(int firstBlockIndex, ByteBuffer destination) {
+        int bytes = destination.remaining();
+        this.storage.readBlocks(firstBlockIndex, destination);
+        this.metrics.recordRead(bytes / this.blockSize, bytes);
+    }
+
+    @Override
+    public void writeBlock(int blockIndex, ByteBuffer source) {
+        int bytes = source.remaining();
+        this.storage.writeBlock(blockIndex, source);
+        this.metrics.recordWrite(1, bytes);
+    }
+
+    @Override
+    public void writeBlocks(int firstBlockIndex, ByteBuffer source) {
+        int bytes = source.remaining();
+        this.storage.writeBlocks(firstBlockIndex, source);
+        this.metrics.recordWrite(bytes / this.blockSize, bytes);
+    }
+
+    @Override
+    public void truncate(int blockCount) {
+        this.storage.truncate(blockCount);
+    }
+
+    @Override
+    public void force() {
+        this.storage.force();
+    }
+
+    @Override
+    public void close() {
+        this.storage.close();
+    }
+}
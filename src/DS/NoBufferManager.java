@@ -0,0 +1,130 @@
+package DS;
+
+import Interface.IBufferManager;
+import Interface.IRecord;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+//bez cache - kazdy pin cita blok z disku, kazdy dirty unpin ho hned zapise
+//po poslednom odopnuti sa blok vrati vlastnikovi na dalsie pouzitie
+public class NoBufferManager<T extends IRecord<T>> implements IBufferManager<T> {
+    private static final int INITIAL_SLOTS = 8;
+
+    private final IntFunction<Block<T>> reader;
+    private final Supplier<Block<T>> emptyBlockFactory;
+    private final ObjIntConsumer<Block<T>> writer;
+    private final Consumer<Block<T>> recycler;
+    // pripnute bloky su v slotoch 0..size-1 bez dier - uvolneny slot nahradi posledny
+    private final BlockIndexMap slotOfBlock;
+    private Block<T>[] blocks;
+    private int[] blockIndexes;
+    private int[] pinCounts;
+    private int size;
+    private long misses;
+
+    public NoBufferManager(IntFunction<Block<T>> reader, Supplier<Block<T>> emptyBlockFactory,
+                           ObjIntConsumer<Block<T>> writer, Consumer<Block<T>> recycler) {
+        this.reader = reader;
+        this.emptyBlockFactory = emptyBlockFactory;
+        this.writer = writer;
+        this.recycler = recycler;
+        this.slotOfBlock = new BlockIndexMap(INITIAL_SLOTS);
+        this.blocks = Block.newArray(INITIAL_SLOTS);
+        this.blockIndexes = new int[INITIAL_SLOTS];
+        this.pinCounts = new int[INITIAL_SLOTS];
+    }
+
+    @Override
+    public Block<T> pin(int blockIndex) {
+        int slot = this.slotOfBlock.get(blockIndex);
+        if (slot == BlockIndexMap.MISSING) {
+            slot = this.addSlot(blockIndex, this.reader.apply(blockIndex));
+            this.misses++;
+        }
+        this.pinCounts[slot]++;
+        return this.blocks[slot];
+    }
+
+    @Override
+    public Block<T> pinNew(int blockIndex) {
+        int slot = this.slotOfBlock.get(blockIndex);
+        if (slot == BlockIndexMap.MISSING) {
+            slot = this.addSlot(blockIndex, this.emptyBlockFactory.get());
+        } else {
+            this.recycler.accept(this.blocks[slot]);
+            this.blocks[slot] = this.emptyBlockFactory.get();
+        }
+        this.pinCounts[slot]++;
+        return this.blocks[slot];
+    }
+
+    @Override
+    public void unpin(int blockIndex, boolean dirty) {
+        int slot = this.slotOfBlock.get(blockIndex);
+        if (slot == BlockIndexMap.MISSING) {
+            throw new IllegalStateException("Block " + blockIndex + " is not pinned");
+        }
+        Block<T> block = this.blocks[slot];
+        if (dirty) {
+            this.writer.accept(block, blockIndex);
+        }
+        if (--this.pinCounts[slot] == 0) {
+            this.removeSlot(slot);
+            this.recycler.accept(block);
+        }
+    }
+
+    @Override
+    public void discard(int blockIndex) {
+        int slot = this.slotOfBlock.get(blockIndex);
+        if (slot != BlockIndexMap.MISSING) {
+            Block<T> block = this.blocks[slot];
+            this.removeSlot(slot);
+            this.recycler.accept(block);
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public long getHits() {
+        return 0;
+    }
+
+    @Override
+    public long getMisses() {
+        return this.misses;
+    }
+
+    private int addSlot(int blockIndex, Block<T> block) {
+        if (this.size == this.blocks.length) {
+            this.blocks = Arrays.copyOf(this.blocks, this.size * 2);
+            this.blockIndexes = Arrays.copyOf(this.blockIndexes, this.size * 2);
+            this.pinCounts = Arrays.copyOf(this.pinCounts, this.size * 2);
+        }
+        int slot = this.size++;
+        this.blocks[slot] = block;
+        this.blockIndexes[slot] = blockIndex;
+        this.pinCounts[slot] = 0;
+        this.slotOfBlock.put(blockIndex, slot);
+        return slot;
+    }
+
+    private void removeSlot(int slot) {
+        int last = --this.size;
+        this.slotOfBlock.remove(this.blockIndexes[slot]);
+        if (slot != last) {
+            this.blocks[slot] = this.blocks[last];
+            this.blockIndexes[slot] = this.blockIndexes[last];
+            this.pinCounts[slot] = this.pinCounts[last];
+            this.slotOfBlock.put(this.blockIndexes[slot], slot);
+        }
+        this.blocks[last] = null;
+    }
+}
@@ -0,0 +1,101 @@
+package DS;
+
+import Interface.IBlockStorage;
+import Interface.IRecord;
+import Interface.IRecordPredicate;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+// rozsah blokov sa deli na polovice, kym nie je mensi ako jedno citacie okno
+// podmienka je bud nad bajtmi zaznamu, alebo nad dekodovanym zaznamom - ten sa dekoduje raz a vyhovujuci
+// zaznam sa rovno vrati; task sa neserializuje, ulozisko a podmienky su preto transient
+class ParallelScanTask<T extends IRecord<T>> extends RecursiveTask<List<T>> {
+    private static final long serialVersionUID = 1L;
+    private static final int WINDOW_BYTES = 256 * 1024;
+
+    private final transient IBlockStorage storage;
+    private final transient FreeSpaceMap freeSpaceMap;
+    private final Class<T> recordClass;
+    private final int blockSize;
+    private final transient IRecordPredicate predicate;
+    private final transient Predicate<T> recordPredicate;
+    private final int fromBlock;
+    private final int toBlock;
+
+    ParallelScanTask(IBlockStorage storage, FreeSpaceMap freeSpaceMap, Class<T> recordClass, int blockSize,
+                     IRecordPredicate predicate, int fromBlock, int toBlock) {
+        this(storage, freeSpaceMap, recordClass, blockSize, predicate, null, fromBlock, toBlock);
+    }
+
+    ParallelScanTask(IBlockStorage storage, FreeSpaceMap freeSpaceMap, Class<T> recordClass, int blockSize,
+                     Predicate<T> recordPredicate, int fromBlock, int toBlock) {
+        this(storage, freeSpaceMap, recordClass, blockSize, null, recordPredicate, fromBlock, toBlock);
+    }
+
+    private ParallelScanTask(IBlockStorage storage, FreeSpaceMap freeSpaceMap, Class<T> recordClass, int blockSize,
+                             IRecordPredicate predicate, Predicate<T> recordPredicate, int fromBlock, int toBlock) {
+        this.storage = storage;
+        this.freeSpaceMap = freeSpaceMap;
+        this.recordClass = recordClass;
+        this.blockSize = blockSize;
+        this.predicate = predicate;
+        this.recordPredicate = recordPredicate;
+        this.fromBlock = fromBlock;
+        this.toBlock = toBlock;
+    }
+
+    @Override
+    protected List<T> compute() {
+        int windowBlocks = Math.max(1, WINDOW_BYTES / this.blockSize);
+        if (this.toBlock - this.fromBlock <= windowBlocks) {
+            return this.scanRange(windowBlocks);
+        }
+        int middle = (this.fromBlock + this.toBlock) >>> 1;
+        ParallelScanTask<T> left = new ParallelScanTask<>(this.storage, this.freeSpaceMap, this.recordClass,
+                this.blockSize, this.predicate, this.recordPredicate, this.fromBlock, middle);
+        ParallelScanTask<T> right = new ParallelScanTask<>(this.storage, this.freeSpaceMap, this.recordClass,
+                this.blockSize, this.predicate, this.recordPredicate, middle, this.toBlock);
+        left.fork();
+        List<T> result = right.compute();
+        List<T> leftResult = left.join();
+        leftResult.addAll(result);
+        return leftResult;
+    }
+
+    private List<T> scanRange(int windowBlocks) {
+        List<T> matches = new ArrayList<>();
+        int first = this.fromBlock;
+        while (first < this.toBlock && this.freeSpaceMap.isEmpty(first)) {
+            first++;
+        }
+        if (first >= this.toBlock) {
+            return matches;
+        }
+
+        int count = Math.min(windowBlocks, this.toBlock - first);
+        ByteBuffer window = ByteBuffer.allocate(count * this.blockSize);
+        this.storage.readBlocks(HeapFile.pageOf(first), window);
+
+        Block<T> block = new Block<>(this.recordClass, this.blockSize);
+        // nevyhovujuci zaznam sa prepise dalsim, nova instancia sa vytvori az po zhode
+        T candidate = block.createRecord();
+        for (int i = 0; i < count; i++) {
+            block.readFrom(window, i * this.blockSize);
+            for (int slot = 0; slot < block.getValidCount(); slot++) {
+                if (this.predicate != null && !block.matches(slot, this.predicate)) {
+                    continue;
+                }
+                block.readRecordInto(slot, candidate);
+                if (this.recordPredicate == null || this.recordPredicate.test(candidate)) {
+                    matches.add(candidate);
+                    candidate = block.createRecord();
+                }
+            }
+        }
+        return matches;
+    }
+}
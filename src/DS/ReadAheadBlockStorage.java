@@ -0,0 +1,283 @@
+package DS;
+
+import Interface.IBlockStorage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+// obal nad ulozistom, ktory pri citani stranok po sebe docita dalsie stranky dopredu na pozadi
+// kazda dalsia davka je dvojnasobna, pri nahodnom pristupe sa prefetch zastavi a prva davka dalsieho
+// sekvencneho behu sa odvodi od dlzky predosleho - kratke behy tak necitaju zbytocne velke okna
+class ReadAheadBlockStorage implements IBlockStorage {
+    private static final int SEQUENTIAL_THRESHOLD = 2;
+    private static final int MIN_WINDOW = 4;
+    private static final int MAX_WINDOW_BYTES = 512 * 1024;
+    private static final int RETAINED_BUFFERS = 3;
+    private static final int NO_PAGE = -2;
+
+    // jedna davka dopredu citanych stranok - data su k dispozicii az po dokonceni citania
+    // buffer sa vrati do poolu, ked z mapy odide posledna stranka davky a citanie dobehne
+    private static final class Batch {
+        final int firstPage;
+        final ByteBuffer buffer;
+        final CompletableFuture<ByteBuffer> data;
+        int unreadPages;
+
+        Batch(int firstPage, int pages, ByteBuffer buffer, CompletableFuture<ByteBuffer> data) {
+            this.firstPage = firstPage;
+            this.unreadPages = pages;
+            this.buffer = buffer;
+            this.data = data;
+        }
+    }
+
+    private final IBlockStorage storage;
+    private final int blockSize;
+    // pocet stranok v subore - za koniec sa dopredu necita
+    private final IntSupplier pageLimit;
+    private final int maxWindow;
+    private final ExecutorService reader;
+    // nie synchronized - planovac heap filu je virtualne vlakno a to by pri cakani na davku drzalo nosne vlakno
+    private final ReentrantLock lock;
+    // priame buffery pre najvacsiu davku, mensia davka pouzije ich zaciatok
+    private final ArrayDeque<ByteBuffer> freeBuffers;
+
+    // stranka -> davka, ktora ju obsahuje; zapis stranky ju z mapy odstrani, takze sa stare data nepouziju
+    // ani ked citanie davky este bezi
+    private final Map<Integer, Batch> prefetched;
+    private int lastPage;
+    private int sequentialRun;
+    // velkost poslednej davky, 0 ked sa dopredu necita
+    private int window;
+    private int initialWindow;
+    private int nextPrefetchPage;
+    private boolean enabled;
+
+    private final LongAdder hits;
+    private final LongAdder prefetchedPages;
+
+    ReadAheadBlockStorage(IBlockStorage storage, int blockSize, IntSupplier pageLimit) {
+        this.storage = storage;
+        this.blockSize = blockSize;
+        this.pageLimit = pageLimit;
+        this.maxWindow = Math.max(MIN_WINDOW, MAX_WINDOW_BYTES / blockSize);
+        this.reader = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("heap-file-read-ahead").factory());
+        this.lock = new ReentrantLock();
+        this.freeBuffers = new ArrayDeque<>();
+        this.prefetched = new HashMap<>();
+        this.lastPage = NO_PAGE;
+        this.initialWindow = MIN_WINDOW;
+        this.nextPrefetchPage = NO_PAGE;
+        this.enabled = true;
+        this.hits = new LongAdder();
+        this.prefetchedPages = new LongAdder();
+    }
+
+    //na rozbehnutu davku sa caka mimo zamku, aby zapisy inych stranok nemuseli cakat na citanie
+    @Override
+    public void readBlock(int blockIndex, ByteBuffer destination) {
+        Batch batch;
+        this.lock.lock();
+        try {
+            if (this.enabled && blockIndex == this.lastPage + 1) {
+                this.sequentialRun++;
+            } else {
+                this.stopReadAhead();
+            }
+            this.lastPage = blockIndex;
+
+            batch = this.prefetched.remove(blockIndex);
+            if (this.sequentialRun >= SEQUENTIAL_THRESHOLD) {
+                this.scheduleAhead(blockIndex);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+
+        if (batch != null) {
+            boolean copied = this.copyFrom(batch, blockIndex, destination);
+            this.lock.lock();
+            try {
+                this.pageDropped(batch);
+            } finally {
+                this.lock.unlock();
+            }
+            if (copied) {
+                this.hits.increment();
+                return;
+            }
+        }
+        this.storage.readBlock(blockIndex, destination);
+    }
+
+    //nova davka sa spusti, ked citanie dobehne do druhej polovice poslednej davky - tak je dalsia
+    //na ceste skor, nez ju citatel potrebuje
+    private void scheduleAhead(int page) {
+        int size;
+        if (this.window == 0) {
+            this.nextPrefetchPage = page + 1;
+            size = this.initialWindow;
+        } else if (this.nextPrefetchPage - page - 1 <= this.window / 2) {
+            size = Math.min(this.maxWindow, this.window * 2);
+        } else {
+            return;
+        }
+        int count = Math.min(size, this.pageLimit.getAsInt() - this.nextPrefetchPage);
+        count = Math.min(count, 2 * this.maxWindow - this.prefetched.size());
+        if (count <= 0) {
+            return;
+        }
+
+        int firstPage = this.nextPrefetchPage;
+        ByteBuffer buffer = this.freeBuffers.pollLast();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(this.maxWindow * this.blockSize);
+        }
+        buffer.clear().limit(count * this.blockSize);
+        ByteBuffer target = buffer;
+        Batch batch = new Batch(firstPage, count, buffer, CompletableFuture.supplyAsync(() -> {
+            this.storage.readBlocks(firstPage, target);
+            return target;
+        }, this.reader));
+        for (int i = 0; i < count; i++) {
+            this.prefetched.put(firstPage + i, batch);
+        }
+        this.nextPrefetchPage += count;
+        this.prefetchedPages.add(count);
+        this.window = size;
+    }
+
+    //pri nahodnom pristupe sa zahodia stranky, ktore sa uz neprecitaju
+    private void stopReadAhead() {
+        if (this.window > 0) {
+            int run = Integer.highestOneBit(this.sequentialRun);
+            this.initialWindow = Math.max(MIN_WINDOW, Math.min(this.maxWindow, run));
+            for (Batch batch : this.prefetched.values()) {
+                this.pageDropped(batch);
+            }
+            this.prefetched.clear();
+        }
+        this.sequentialRun = 0;
+        this.window = 0;
+        this.nextPrefetchPage = NO_PAGE;
+    }
+
+    //volane pod zamkom; buffer sa moze znova pouzit az po dobehnuti citania, ktore do neho zapisuje
+    private void pageDropped(Batch batch) {
+        if (--batch.unreadPages == 0) {
+            batch.data.whenComplete((data, error) -> this.releaseBuffer(batch.buffer));
+        }
+    }
+
+    private void releaseBuffer(ByteBuffer buffer) {
+        this.lock.lock();
+        try {
+            if (this.freeBuffers.size() < RETAINED_BUFFERS) {
+                this.freeBuffers.addLast(buffer);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    //ak citanie davky zlyhalo (napr. stranka este nebola na disku), precita sa stranka priamo
+    private boolean copyFrom(Batch batch, int page, ByteBuffer destination) {
+        if (destination.remaining() != this.blockSize) {
+            return false;
+        }
+        try {
+            ByteBuffer data = batch.data.join();
+            destination.put(destination.position(), data, (page - batch.firstPage) * this.blockSize, this.blockSize);
+            destination.position(destination.limit());
+            return true;
+        } catch (CompletionException e) {
+            return false;
+        }
+    }
+
+    void setEnabled(boolean enabled) {
+        this.lock.lock();
+        try {
+            this.enabled = enabled;
+            if (!enabled) {
+                this.stopReadAhead();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    long getHits() { return this.hits.sum(); }
+    long getPrefetchedPages() { return this.prefetchedPages.sum(); }
+
+    @Override
+    public void readBlocks(int firstBlockIndex, ByteBuffer destination) {
+        this.storage.readBlocks(firstBlockIndex, destination);
+    }
+
+    @Override
+    public void writeBlock(int blockIndex, ByteBuffer source) {
+        this.invalidate(blockIndex, 1);
+        this.storage.writeBlock(blockIndex, source);
+    }
+
+    @Override
+    public void writeBlocks(int firstBlockIndex, ByteBuffer source) {
+        this.invalidate(firstBlockIndex, source.remaining() / this.blockSize);
+        this.storage.writeBlocks(firstBlockIndex, source);
+    }
+
+    private void invalidate(int firstPage, int count) {
+        this.lock.lock();
+        try {
+            for (int i = 0; i < count && !this.prefetched.isEmpty(); i++) {
+                Batch batch = this.prefetched.remove(firstPage + i);
+                if (batch != null) {
+                    this.pageDropped(batch);
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void truncate(int blockCount) {
+        this.lock.lock();
+        try {
+            Iterator<Map.Entry<Integer, Batch>> entries = this.prefetched.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<Integer, Batch> entry = entries.next();
+                if (entry.getKey() >= blockCount) {
+                    this.pageDropped(entry.getValue());
+                    entries.remove();
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        this.storage.truncate(blockCount);
+    }
+
+    @Override
+    public void force() {
+        this.storage.force();
+    }
+
+    //rozbehnute citania sa dokoncia pred zatvorenim kanala - prerusenie by kanal zavrelo samo
+    @Override
+    public void close() {
+        this.reader.close();
+        this.storage.close();
+    }
+}
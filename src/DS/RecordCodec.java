@@ -0,0 +1,400 @@
+package DS;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// kodek zaznamu poskladany z poli s anotaciou @RecordField - polia sa naviazu cez MethodHandle
+// raz pri vytvoreni kodeku, najvacsia velkost zaznamu a posuny poli su vypocitane vopred
+// retazec je dlzka (1 bajt, pri dlhsich 2 bajty) a potom len jeho skutocne bajty - polia za prvym
+// retazcom preto nemaju pevny posun; zaznamy vytvara Block cez vlastny konstruktor bez reflexie
+public class RecordCodec<T> {
+    private enum Kind { INT, LONG, DOUBLE, DATE, STRING }
+
+    private static final long NULL_DATE = Long.MIN_VALUE;
+    private static final int VARIABLE_OFFSET = -1;
+    private static final int FNV_OFFSET = 0x811C9DC5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private static final class Slot {
+        final String name;
+        final Kind kind;
+        final int offset;
+        final int width;
+        final int maxLength;
+        final int prefix;
+        final Charset charset;
+        final MethodHandle getter;
+        final MethodHandle setter;
+
+        Slot(String name, Kind kind, int offset, int maxLength, Charset charset, MethodHandle getter, MethodHandle setter) {
+            this.name = name;
+            this.kind = kind;
+            this.offset = offset;
+            this.maxLength = maxLength;
+            this.prefix = maxLength <= 0xFF ? 1 : 2;
+            this.charset = charset;
+            this.width = switch (kind) {
+                case INT -> Integer.BYTES;
+                case LONG, DATE -> Long.BYTES;
+                case DOUBLE -> Double.BYTES;
+                case STRING -> this.prefix + maxLength;
+            };
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    private final Class<T> type;
+    private final Slot[] slots;
+    private final Map<String, Slot> slotsByName;
+    private final int size;
+
+    private RecordCodec(Class<T> type, Slot[] slots) {
+        this.type = type;
+        this.slots = slots;
+        this.slotsByName = new HashMap<>();
+        int size = 0;
+        for (Slot slot : slots) {
+            this.slotsByName.put(slot.name, slot);
+            size += slot.width;
+        }
+        this.size = size;
+    }
+
+    //lookup musi mat pristup k privatnym polam triedy - trieda zaznamu preto posiela MethodHandles.lookup()
+    public static <T> RecordCodec<T> compact(Class<T> type, MethodHandles.Lookup lookup) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isAnnotationPresent(RecordField.class)) {
+                fields.add(field);
+            }
+        }
+        fields.sort(Comparator.comparingInt(field -> field.getAnnotation(RecordField.class).order()));
+
+        Slot[] slots = new Slot[fields.size()];
+        int offset = 0;
+        boolean variable = false;
+        try {
+            for (int i = 0; i < slots.length; i++) {
+                Field field = fields.get(i);
+                RecordField annotation = field.getAnnotation(RecordField.class);
+                Kind kind = kindOf(field);
+                if (kind == Kind.STRING && (annotation.length() <= 0 || annotation.length() > 0xFFFF)) {
+                    throw new IllegalStateException("Field " + field.getName() + " needs a length between 1 and 65535");
+                }
+                Class<?> erased = field.getType().isPrimitive() ? field.getType() : Object.class;
+                MethodHandle getter = lookup.unreflectGetter(field).asType(MethodType.methodType(erased, Object.class));
+                MethodHandle setter = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, erased));
+                Charset charset = annotation.encoding() == RecordField.Encoding.UTF8
+                        ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+                slots[i] = new Slot(field.getName(), kind, variable ? VARIABLE_OFFSET : offset,
+                        annotation.length(), charset, getter, setter);
+                offset += slots[i].width;
+                variable |= kind == Kind.STRING;
+            }
+            return new RecordCodec<>(type, slots);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot bind record codec for " + type.getName(), e);
+        }
+    }
+
+    private static Kind kindOf(Field field) {
+        Class<?> fieldType = field.getType();
+        if (fieldType == int.class) {
+            return Kind.INT;
+        }
+        if (fieldType == long.class) {
+            return Kind.LONG;
+        }
+        if (fieldType == double.class) {
+            return Kind.DOUBLE;
+        }
+        if (fieldType == Date.class) {
+            return Kind.DATE;
+        }
+        if (fieldType == String.class) {
+            return Kind.STRING;
+        }
+        throw new IllegalStateException("Unsupported record field type " + fieldType.getName() + " of " + field.getName());
+    }
+
+    public T read(T target, ByteBuffer buffer, int offset) {
+        int position = offset;
+        try {
+            for (Slot slot : this.slots) {
+                switch (slot.kind) {
+                    case INT -> slot.setter.invokeExact((Object) target, buffer.getInt(position));
+                    case LONG -> slot.setter.invokeExact((Object) target, buffer.getLong(position));
+                    case DOUBLE -> slot.setter.invokeExact((Object) target, buffer.getDouble(position));
+                    case DATE -> {
+                        long time = buffer.getLong(position);
+                        slot.setter.invokeExact((Object) target, (Object) (time == NULL_DATE ? null : new Date(time)));
+                    }
+                    case STRING -> slot.setter.invokeExact((Object) target, (Object) readString(slot, buffer, position));
+                }
+                position += slot.kind == Kind.STRING ? slot.prefix + storedLength(slot, buffer, position) : slot.width;
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+        return target;
+    }
+
+    public void write(T record, ByteBuffer buffer, int offset) {
+        int position = offset;
+        try {
+            for (Slot slot : this.slots) {
+                int width = slot.width;
+                switch (slot.kind) {
+                    case INT -> buffer.putInt(position, (int) slot.getter.invokeExact((Object) record));
+                    case LONG -> buffer.putLong(position, (long) slot.getter.invokeExact((Object) record));
+                    case DOUBLE -> buffer.putDouble(position, (double) slot.getter.invokeExact((Object) record));
+                    case DATE -> {
+                        Date date = (Date) (Object) slot.getter.invokeExact((Object) record);
+                        buffer.putLong(position, date == null ? NULL_DATE : date.getTime());
+                    }
+                    case STRING -> {
+                        String value = (String) (Object) slot.getter.invokeExact((Object) record);
+                        width = slot.prefix + writeString(slot, buffer, position, value);
+                    }
+                }
+                position += width;
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int storedLength(Slot slot, ByteBuffer buffer, int position) {
+        int length = slot.prefix == 1 ? buffer.get(position) & 0xFF : buffer.getShort(position) & 0xFFFF;
+        return Math.min(length, slot.maxLength);
+    }
+
+    private static String readString(Slot slot, ByteBuffer buffer, int position) {
+        int length = storedLength(slot, buffer, position);
+        int start = position + slot.prefix;
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, slot.charset);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes);
+        return new String(bytes, slot.charset);
+    }
+
+    //rovnake kluce maju rovnaku dlzku aj bajty, daju sa teda porovnat priamo v bajtoch
+    //vrati pocet zapisanych bajtov retazca
+    private static int writeString(Slot slot, ByteBuffer buffer, int position, String value) {
+        int start = position + slot.prefix;
+        int length;
+        if (value == null) {
+            length = 0;
+        } else if (slot.charset == StandardCharsets.ISO_8859_1) {
+            length = Math.min(value.length(), slot.maxLength);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                buffer.put(start + i, (byte) (c <= 0xFF ? c : '?'));
+            }
+        } else {
+            byte[] bytes = value.getBytes(slot.charset);
+            length = Math.min(bytes.length, slot.maxLength);
+            // retazec sa nesmie odrezat v strede viacbajtoveho znaku
+            while (length > 0 && length < bytes.length && (bytes[length] & 0xC0) == 0x80) {
+                length--;
+            }
+            buffer.put(start, bytes, 0, length);
+        }
+        if (slot.prefix == 1) {
+            buffer.put(position, (byte) length);
+        } else {
+            buffer.putShort(position, (short) length);
+        }
+        return length;
+    }
+
+    //pocet bajtov retazca po orezani na maxLength - rovnako ako writeString, ale bez kodovania do pola
+    private static int encodedLength(Slot slot, String value) {
+        if (value == null) {
+            return 0;
+        }
+        if (slot.charset == StandardCharsets.ISO_8859_1) {
+            return Math.min(value.length(), slot.maxLength);
+        }
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int bytes;
+            if (c < 0x80) {
+                bytes = 1;
+            } else if (c < 0x800) {
+                bytes = 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes = 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // osamoteny surrogate sa zakoduje ako '?'
+                bytes = 1;
+            } else {
+                bytes = 3;
+            }
+            if (length + bytes > slot.maxLength) {
+                break;
+            }
+            length += bytes;
+        }
+        return length;
+    }
+
+    //FNV-1a cez bajty, ktore writeString zapise (dlzka aj obsah) - rovnako ako IRecord.hashKey, ale bez kodovania do pola
+    private static int hashString(Slot slot, String value) {
+        int length = encodedLength(slot, value);
+        int hash = FNV_OFFSET;
+        if (slot.prefix == 2) {
+            hash = (hash ^ (length >>> 8)) * FNV_PRIME;
+        }
+        hash = (hash ^ (length & 0xFF)) * FNV_PRIME;
+        if (slot.charset == StandardCharsets.ISO_8859_1) {
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                hash = (hash ^ (c <= 0xFF ? c : '?')) * FNV_PRIME;
+            }
+            return hash;
+        }
+        for (int i = 0, written = 0; written < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                hash = (hash ^ c) * FNV_PRIME;
+                written++;
+            } else if (c < 0x800) {
+                hash = (hash ^ (0xC0 | c >>> 6)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | c & 0x3F)) * FNV_PRIME;
+                written += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                hash = (hash ^ (0xF0 | codePoint >>> 18)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | codePoint >>> 12 & 0x3F)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | codePoint >>> 6 & 0x3F)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | codePoint & 0x3F)) * FNV_PRIME;
+                written += 4;
+            } else if (Character.isSurrogate(c)) {
+                hash = (hash ^ '?') * FNV_PRIME;
+                written++;
+            } else {
+                hash = (hash ^ (0xE0 | c >>> 12)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | c >>> 6 & 0x3F)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | c & 0x3F)) * FNV_PRIME;
+                written += 3;
+            }
+        }
+        return hash;
+    }
+
+    private int storedWidth(Slot slot, T record) {
+        if (slot.kind != Kind.STRING) {
+            return slot.width;
+        }
+        return slot.prefix + encodedLength(slot, stringOf(slot, record));
+    }
+
+    private static String stringOf(Slot slot, Object record) {
+        try {
+            return (String) (Object) slot.getter.invokeExact(record);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //najvacsia velkost zaznamu
+    public int getSize() {
+        return this.size;
+    }
+
+    //kolko bajtov zaznam naozaj zapise
+    public int getStoredSize(T record) {
+        int size = 0;
+        for (Slot slot : this.slots) {
+            size += this.storedWidth(slot, record);
+        }
+        return size;
+    }
+
+    public int offsetOf(String fieldName) {
+        Slot slot = this.slot(fieldName);
+        if (slot.offset == VARIABLE_OFFSET) {
+            throw new IllegalStateException("Field " + fieldName + " follows a compact string and has no fixed offset");
+        }
+        return slot.offset;
+    }
+
+    //sirka pola v zapisanom zazname - retazec ma len dlzku a skutocne bajty
+    public int storedWidthOf(T record, String fieldName) {
+        return this.storedWidth(this.slot(fieldName), record);
+    }
+
+    //sirka pola v zazname ulozenom v buffri na danom posune - pole musi mat pevny posun
+    public int storedWidthAt(String fieldName, ByteBuffer buffer, int offset) {
+        Slot slot = this.slot(fieldName);
+        if (slot.offset == VARIABLE_OFFSET) {
+            throw new IllegalStateException("Field " + fieldName + " follows a compact string and has no fixed offset");
+        }
+        if (slot.kind != Kind.STRING) {
+            return slot.width;
+        }
+        return slot.prefix + storedLength(slot, buffer, offset + slot.offset);
+    }
+
+    //hash retazcoveho pola presne z bajtov, ktore sa ulozia - retazce s rovnakym ulozenym tvarom maju rovnaky hash
+    public int hashOf(T record, String fieldName) {
+        Slot slot = this.slot(fieldName);
+        if (slot.kind != Kind.STRING) {
+            throw new IllegalArgumentException("Record field " + fieldName + " is not a string");
+        }
+        return hashString(slot, stringOf(slot, record));
+    }
+
+    //retazec v podobe, v akej ho pole ulozi a znova precita - orezany na dlzku pola a so znakmi mimo kodovania
+    //nahradenymi '?'; zaznam, ktory porovnava kluc ako retazec, sa tak zhoduje s porovnanim ulozenych bajtov
+    public String fit(String fieldName, String value) {
+        Slot slot = this.slot(fieldName);
+        if (slot.kind != Kind.STRING) {
+            throw new IllegalArgumentException("Record field " + fieldName + " is not a string");
+        }
+        if (value == null) {
+            return null;
+        }
+        boolean unchanged = value.length() <= slot.maxLength;
+        for (int i = 0; unchanged && i < value.length(); i++) {
+            unchanged = value.charAt(i) < 0x80;
+        }
+        if (unchanged) {
+            return value;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(slot.width);
+        writeString(slot, buffer, 0, value);
+        return readString(slot, buffer, 0);
+    }
+
+    private Slot slot(String fieldName) {
+        Slot slot = this.slotsByName.get(fieldName);
+        if (slot == null) {
+            throw new IllegalArgumentException(this.type.getSimpleName() + " has no record field " + fieldName);
+        }
+        return slot;
+    }
+}
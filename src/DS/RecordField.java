@@ -0,0 +1,18 @@
+package DS;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// pole zaznamu, ktore serializuje RecordCodec - poradie urcuje poziciu v zazname,
+// length je pri retazcoch najvacsi pocet znakov (LATIN1) alebo bajtov (UTF8)
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface RecordField {
+    int order();
+    int length() default 0;
+    Encoding encoding() default Encoding.LATIN1;
+
+    enum Encoding { LATIN1, UTF8 }
+}
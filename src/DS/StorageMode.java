@@ -0,0 +1,6 @@
+package DS;
+
+public enum StorageMode {
+    CHANNEL,
+    MAPPED
+}
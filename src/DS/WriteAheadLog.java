@@ -0,0 +1,294 @@
+package DS;
+
+import Interface.IBlockStorage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+// redo log s obrazmi stranok - jeden ramec obsahuje vsetky stranky zmenene jednou operaciou
+// ramec: [magic][dlzka tela][telo: (index stranky, obraz stranky)*][crc]
+public class WriteAheadLog implements AutoCloseable {
+    private static final int FRAME_MAGIC = 0x57414C46;
+    private static final int FRAME_HEADER_SIZE = Integer.BYTES * 2;
+    private static final int FRAME_TRAILER_SIZE = Long.BYTES;
+    private static final long BATCH_INTERVAL_MILLIS = 10;
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final int pageSize;
+    private final CRC32C crc;
+    private final Thread flusher;
+
+    private ByteBuffer appendBuffer;
+    private ByteBuffer spareBuffer;
+    private long appendedLsn;
+    private long durableLsn;
+    private long filePosition;
+    private boolean flushing;
+    private boolean closed;
+    // po chybe zapisu nie je jasne, co z logu je na disku - dalsie zapisy a commity sa odmietnu
+    private Throwable failure;
+    private long forceCount;
+
+    //pri BATCHED sa spusti vlakno, ktore log pravidelne fsyncne
+    public static WriteAheadLog open(File file, int pageSize, Durability durability) {
+        WriteAheadLog log = new WriteAheadLog(file, pageSize, durability);
+        if (log.flusher != null) {
+            log.flusher.start();
+        }
+        return log;
+    }
+
+    private WriteAheadLog(File file, int pageSize, Durability durability) {
+        this.durability = durability;
+        this.pageSize = pageSize;
+        this.crc = new CRC32C();
+        this.appendBuffer = ByteBuffer.allocate(64 * 1024);
+        this.spareBuffer = ByteBuffer.allocate(64 * 1024);
+        try {
+            this.channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.filePosition = this.channel.size();
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot open write-ahead log: " + file.getName(), e);
+        }
+        // LSN je pocet bajtov zapisanych do logu od otvorenia, skracovanie logu ho nenuluje
+        this.appendedLsn = 0;
+        this.durableLsn = 0;
+
+        if (durability == Durability.BATCHED) {
+            this.flusher = new Thread(this::runFlusher, "wal-flusher-" + file.getName());
+            this.flusher.setDaemon(true);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    //telo ramca su dvojice (int index stranky, obraz stranky), vrati LSN konca ramca
+    public synchronized long append(ByteBuffer body) {
+        this.checkNotFailed();
+        int frameSize = FRAME_HEADER_SIZE + body.remaining() + FRAME_TRAILER_SIZE;
+        if (this.appendBuffer.remaining() < frameSize) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(this.appendBuffer.capacity() * 2, this.appendBuffer.position() + frameSize));
+            this.appendBuffer.flip();
+            bigger.put(this.appendBuffer);
+            this.appendBuffer = bigger;
+        }
+        this.crc.reset();
+        this.crc.update(body.duplicate());
+        this.appendBuffer.putInt(FRAME_MAGIC);
+        this.appendBuffer.putInt(body.remaining());
+        this.appendBuffer.put(body);
+        this.appendBuffer.putLong(this.crc.getValue());
+        this.appendedLsn += frameSize;
+        return this.appendedLsn;
+    }
+
+    public void commit(long lsn) {
+        if (this.durability == Durability.PER_OP) {
+            this.flushTo(lsn);
+            return;
+        }
+        synchronized (this) {
+            this.checkNotFailed();
+        }
+    }
+
+    //vsetko, co bolo doteraz zapisane do logu, bude na disku
+    public void sync() {
+        long lsn;
+        synchronized (this) {
+            lsn = this.appendedLsn;
+        }
+        this.flushTo(lsn);
+    }
+
+    // skupinovy commit - prve cakajuce vlakno zapise a fsyncne cely nazbierany buffer,
+    // ostatne cakaju a skoncia spolu s nim
+    public void flushTo(long lsn) {
+        ByteBuffer toWrite;
+        long targetLsn;
+        long position;
+        synchronized (this) {
+            while (this.durableLsn < lsn && this.flushing) {
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for log flush", e);
+                }
+            }
+            if (this.durableLsn >= lsn) {
+                return;
+            }
+            this.checkNotFailed();
+            this.flushing = true;
+            toWrite = this.appendBuffer.flip();
+            this.appendBuffer = this.spareBuffer.clear();
+            this.spareBuffer = null;
+            targetLsn = this.appendedLsn;
+            position = this.filePosition;
+        }
+
+        Throwable error = null;
+        try {
+            while (toWrite.hasRemaining()) {
+                position += this.channel.write(toWrite, position);
+            }
+            this.channel.force(false);
+        } catch (IOException e) {
+            error = e;
+            throw new RuntimeException("Cannot write to write-ahead log", e);
+        } catch (RuntimeException | Error e) {
+            error = e;
+            throw e;
+        } finally {
+            // ramce z neuspesneho zapisu sa nesmu povazovat za trvale ani ich nesmie prekryt dalsi zapis,
+            // log sa preto oznaci za chybny
+            synchronized (this) {
+                this.spareBuffer = toWrite.clear();
+                if (error == null) {
+                    this.filePosition = position;
+                    this.durableLsn = Math.max(this.durableLsn, targetLsn);
+                    this.forceCount++;
+                } else if (this.failure == null) {
+                    this.failure = error;
+                }
+                this.flushing = false;
+                this.notifyAll();
+            }
+        }
+    }
+
+    private void checkNotFailed() {
+        if (this.failure != null) {
+            throw new IllegalStateException("Write-ahead log failed earlier, reopen the heap file to recover", this.failure);
+        }
+    }
+
+    public synchronized long size() {
+        return this.filePosition + this.appendBuffer.position();
+    }
+
+    public synchronized long getForceCount() {
+        return this.forceCount;
+    }
+
+    //volat az ked su vsetky stranky z logu zapisane a fsyncnute v datovom subore
+    public synchronized void truncate() {
+        while (this.flushing) {
+            try {
+                this.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for log flush", e);
+            }
+        }
+        try {
+            this.channel.truncate(0);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot truncate write-ahead log", e);
+        }
+        this.appendBuffer.clear();
+        this.filePosition = 0;
+        this.durableLsn = this.appendedLsn;
+    }
+
+    //prehra kompletne ramce do uloziska, neuplny alebo poskodeny koniec logu sa zahodi
+    public int recover(IBlockStorage storage) {
+        int frames = 0;
+        try {
+            long position = 0;
+            long size = this.channel.size();
+            ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+            while (position + FRAME_HEADER_SIZE <= size) {
+                this.readFully(header.clear(), position);
+                int magic = header.getInt(0);
+                int bodyLength = header.getInt(Integer.BYTES);
+                if (magic != FRAME_MAGIC || bodyLength < 0
+                        || position + FRAME_HEADER_SIZE + bodyLength + FRAME_TRAILER_SIZE > size) {
+                    break;
+                }
+                ByteBuffer frame = ByteBuffer.allocate(bodyLength + FRAME_TRAILER_SIZE);
+                this.readFully(frame, position + FRAME_HEADER_SIZE);
+                this.crc.reset();
+                this.crc.update(frame.slice(0, bodyLength));
+                if (this.crc.getValue() != frame.getLong(bodyLength)) {
+                    break;
+                }
+                for (int offset = 0; offset + Integer.BYTES + this.pageSize <= bodyLength; offset += Integer.BYTES + this.pageSize) {
+                    storage.writeBlock(frame.getInt(offset), frame.slice(offset + Integer.BYTES, this.pageSize));
+                }
+                frames++;
+                position += FRAME_HEADER_SIZE + bodyLength + FRAME_TRAILER_SIZE;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read write-ahead log", e);
+        }
+        if (frames > 0) {
+            storage.force();
+        }
+        this.truncate();
+        return frames;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = this.channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of write-ahead log");
+            }
+            position += read;
+        }
+    }
+
+    //chybu zapisu si log zapamata a vyhodi ju dalsi commit - vlakno potom skonci, fsync uz nema zmysel
+    private void runFlusher() {
+        while (true) {
+            synchronized (this) {
+                if (this.closed || this.failure != null) {
+                    return;
+                }
+            }
+            try {
+                Thread.sleep(BATCH_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                this.sync();
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    if (!this.closed && this.failure == null) {
+                        this.failure = e;
+                    }
+                    this.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.sync();
+        } finally {
+            synchronized (this) {
+                this.closed = true;
+            }
+            if (this.flusher != null) {
+                this.flusher.interrupt();
+            }
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -7,6 +7,8 @@ import Tester.Osoba;
 import java.util.ArrayList;
 import java.util.List;
 
+// volania prichadzaju z SwingWorker vlakien mimo EDT - heap file nie je vlaknovo bezpecny,
+// preto su vsetky pristupy k nemu synchronizovane na controlleri
 public class AppController {
 
     private final HeapFile<Osoba> heapFile;
@@ -15,28 +17,54 @@ public class AppController {
         this.heapFile = heapFile;
     }
 
-    public boolean insertOsoba(Osoba osoba) {
-        int blockIndex = this.heapFile.insertRecord(osoba);
-        return blockIndex >= 0;
+    //vrati index bloku, do ktoreho sa osoba vlozila
+    public synchronized int insertOsoba(Osoba osoba) {
+        return this.heapFile.insertRecord(osoba);
     }
 
-    public boolean deleteOsoba(int index, String uuid) {
+    public synchronized void insertRandom(int count) {
+        List<Osoba> osoby = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            osoby.add(Osoba.generateRandom());
+        }
+        this.heapFile.insertAll(osoby);
+    }
+
+    public synchronized boolean deleteOsoba(int index, String uuid) {
         Osoba dummy = Osoba.fromUUID(uuid);
         return this.heapFile.deleteRecord(index, dummy);
     }
 
-    public Osoba findOsoba(int index, String uuid) {
+    public synchronized Osoba findOsoba(int index, String uuid) {
         Osoba dummy = Osoba.fromUUID(uuid);
         return this.heapFile.findRecord(index, dummy);
     }
 
-    public List<Block<Osoba>> loadBlocks() {
-        int total = this.heapFile.getTotalBlocks();
-        List<Block<Osoba>> list = new ArrayList<>();
+    //bez indexu bloku - heap file precita len bloky, ktore podla Bloom filtra mozu kluc obsahovat
+    public synchronized Osoba findOsobaByKey(String uuid) {
+        return this.heapFile.findByKey(Osoba.fromUUID(uuid));
+    }
 
-        for (int i = 0; i < total; i++) {
-            list.add(this.heapFile.getBlock(i));
+    public synchronized int getTotalBlocks() {
+        return this.heapFile.getTotalBlocks();
+    }
+
+    //nacita len bloky v rozsahu [first, first + count), ktore v subore existuju - vracia kopie,
+    //lebo ramec z buffer poolu sa po odomknuti moze prepisat inym blokom
+    public synchronized List<Block<Osoba>> loadBlocks(int first, int count) {
+        int end = Math.min(this.heapFile.getTotalBlocks(), first + count);
+        List<Block<Osoba>> list = new ArrayList<>(Math.max(0, end - first));
+
+        for (int i = first; i < end; i++) {
+            Block<Osoba> block = this.heapFile.getBlock(i);
+            Block<Osoba> copy = new Block<>(Osoba.class, block.getSize());
+            copy.fromByteArray(block.toByteArray());
+            list.add(copy);
         }
         return list;
     }
-}
\ No newline at end of file
+
+    public synchronized void close() {
+        this.heapFile.close();
+    }
+}
@@ -1,47 +1,185 @@
 package GUI.View;
 
 import DS.Block;
+import GUI.Controller.AppController;
 import Tester.Osoba;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
+// zobrazuje bloky po strankach - nacitava sa len viditelna stranka cez SwingWorker mimo EDT
+// a niekolko naposledy zobrazenych stranok sa drzi v cache
 public class BlockView extends JPanel {
+    private static final int BLOCKS_PER_PAGE = 20;
+    private static final int CACHED_PAGES = 16;
 
-    public BlockView() {
-        this.setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
-    }
+    private final transient AppController controller;
+    private final JPanel blocksPanel;
+    private final JLabel pageLabel;
+    private final JButton previousBtn;
+    private final JButton nextBtn;
+    private final JTextField jumpField;
 
-    public void updateBlocks(List<Block<Osoba>> blocks) {
+    // pristupuje sa k nej len z EDT, LinkedHashMap v poradi pristupu vyhadzuje najdlhsie nepouzitu stranku
+    private final transient Map<Integer, List<String>> pageCache;
+    private int currentPage;
+    private int totalBlocks;
+    // zvysi sa pri kazdej zmene suboru - stranka nacitana pred zmenou sa potom neulozi do cache
+    private long generation;
+    private transient SwingWorker<List<String>, Void> loader;
 
-        this.removeAll();
+    public BlockView(AppController controller) {
+        this.controller = controller;
+        this.setLayout(new BorderLayout());
+        this.pageCache = new LinkedHashMap<>(CACHED_PAGES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<String>> eldest) {
+                return this.size() > CACHED_PAGES;
+            }
+        };
 
-        for (int i = 0; i < blocks.size(); i++) {
-            Block<Osoba> block = blocks.get(i);
+        JPanel navigation = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        this.previousBtn = new JButton("<");
+        this.nextBtn = new JButton(">");
+        this.pageLabel = new JLabel();
+        this.jumpField = new JTextField(6);
+        JButton jumpBtn = new JButton("Go to block");
 
-            JPanel blockPanel = new JPanel(new BorderLayout());
-            blockPanel.setBorder(BorderFactory.createTitledBorder("Block " + i));
+        this.previousBtn.addActionListener(e -> this.showPage(this.currentPage - 1));
+        this.nextBtn.addActionListener(e -> this.showPage(this.currentPage + 1));
+        jumpBtn.addActionListener(e -> {
+            try {
+                this.showPage(Integer.parseInt(this.jumpField.getText().trim()) / BLOCKS_PER_PAGE);
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Invalid block index.");
+            }
+        });
+
+        navigation.add(this.previousBtn);
+        navigation.add(this.pageLabel);
+        navigation.add(this.nextBtn);
+        navigation.add(this.jumpField);
+        navigation.add(jumpBtn);
+        this.add(navigation, BorderLayout.NORTH);
+
+        this.blocksPanel = new JPanel();
+        this.blocksPanel.setLayout(new BoxLayout(this.blocksPanel, BoxLayout.Y_AXIS));
+        JScrollPane scrollPane = new JScrollPane(this.blocksPanel);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        this.add(scrollPane, BorderLayout.CENTER);
+    }
+
+    //po vlozeni alebo zmazani - zahodi stranku so zmenenym blokom, pri Block.NO_BLOCK celu cache
+    //aktualna stranka sa nacita vzdy znova, aby sa zistil novy pocet blokov
+    public void blocksChanged(int blockIndex) {
+        this.generation++;
+        if (blockIndex == Block.NO_BLOCK) {
+            this.pageCache.clear();
+        } else {
+            this.pageCache.remove(blockIndex / BLOCKS_PER_PAGE);
+        }
+        this.pageCache.remove(this.currentPage);
+        this.showPage(this.currentPage);
+    }
+
+    public void showPage(int page) {
+        if (this.loader != null) {
+            this.loader.cancel(false);
+        }
+        int requestedPage = Math.max(0, page);
+        long requestedGeneration = this.generation;
+        List<String> cached = this.pageCache.get(requestedPage);
+        if (cached != null) {
+            this.currentPage = requestedPage;
+            this.render(cached);
+            return;
+        }
+
+        this.pageLabel.setText("Loading...");
+        this.loader = new SwingWorker<>() {
+            private int loadedTotal;
 
-            // ---------- Block Metadata ----------
-            StringBuilder header = new StringBuilder();
-            header.append("validCount: ").append(block.getValidCount()).append("\n");
-            header.append("Records:\n");
+            @Override
+            protected List<String> doInBackground() {
+                this.loadedTotal = BlockView.this.controller.getTotalBlocks();
+                int lastPage = Math.max(0, (this.loadedTotal - 1) / BLOCKS_PER_PAGE);
+                int first = Math.min(requestedPage, lastPage) * BLOCKS_PER_PAGE;
+                List<String> texts = new ArrayList<>(BLOCKS_PER_PAGE);
+                for (Block<Osoba> block : BlockView.this.controller.loadBlocks(first, BLOCKS_PER_PAGE)) {
+                    texts.add(describe(block));
+                }
+                return texts;
+            }
 
-            // ---------- Records ----------
-            for (int j = 0; j < block.getBlockFactor(); j++) {
-                var rec = block.getRecordAt(j);
-                header.append("[").append(j).append("] ").append(rec).append("\n");
+            @Override
+            protected void done() {
+                if (this.isCancelled()) {
+                    return;
+                }
+                try {
+                    List<String> texts = this.get();
+                    // subor narastol alebo sa orezal koniec - stranky od prvej zmenenej uz neplatia
+                    if (this.loadedTotal != BlockView.this.totalBlocks) {
+                        int firstChanged = Math.min(this.loadedTotal, BlockView.this.totalBlocks) / BLOCKS_PER_PAGE;
+                        BlockView.this.pageCache.keySet().removeIf(cachedPage -> cachedPage >= firstChanged);
+                    }
+                    BlockView.this.totalBlocks = this.loadedTotal;
+                    int lastPage = Math.max(0, (this.loadedTotal - 1) / BLOCKS_PER_PAGE);
+                    BlockView.this.currentPage = Math.min(requestedPage, lastPage);
+                    if (requestedGeneration == BlockView.this.generation) {
+                        BlockView.this.pageCache.put(BlockView.this.currentPage, texts);
+                    }
+                    BlockView.this.render(texts);
+                } catch (InterruptedException | ExecutionException e) {
+                    BlockView.this.pageLabel.setText("Error");
+                    JOptionPane.showMessageDialog(BlockView.this, "Loading blocks failed: " + e.getCause());
+                }
             }
+        };
+        this.loader.execute();
+    }
+
+    private void render(List<String> texts) {
+        this.blocksPanel.removeAll();
+        int first = this.currentPage * BLOCKS_PER_PAGE;
+
+        for (int i = 0; i < texts.size(); i++) {
+            JPanel blockPanel = new JPanel(new BorderLayout());
+            blockPanel.setBorder(BorderFactory.createTitledBorder("Block " + (first + i)));
 
-            JTextArea textArea = new JTextArea(header.toString());
+            JTextArea textArea = new JTextArea(texts.get(i));
             textArea.setEditable(false);
 
-            blockPanel.add(new JScrollPane(textArea), BorderLayout.CENTER);
-            this.add(blockPanel);
+            blockPanel.add(textArea, BorderLayout.CENTER);
+            this.blocksPanel.add(blockPanel);
         }
 
-        this.revalidate();
-        this.repaint();
+        int lastPage = Math.max(0, (this.totalBlocks - 1) / BLOCKS_PER_PAGE);
+        this.pageLabel.setText(this.totalBlocks == 0 ? "No blocks"
+                : "Blocks " + first + "-" + (first + texts.size() - 1) + " of " + this.totalBlocks);
+        this.previousBtn.setEnabled(this.currentPage > 0);
+        this.nextBtn.setEnabled(this.currentPage < lastPage);
+
+        this.blocksPanel.revalidate();
+        this.blocksPanel.repaint();
+    }
+
+    //text bloku sa sklada vo SwingWorker vlakne, na EDT sa uz len vlozi do komponentu
+    private static String describe(Block<Osoba> block) {
+        StringBuilder header = new StringBuilder();
+        header.append("validCount: ").append(block.getValidCount()).append("\n");
+        header.append("Records:\n");
+
+        int shown = block.isSlotted() ? block.getValidCount() : block.getBlockFactor();
+        for (int j = 0; j < shown; j++) {
+            var rec = block.getRecordAt(j);
+            header.append("[").append(j).append("] ").append(rec).append("\n");
+        }
+        return header.toString();
     }
 }
@@ -5,6 +5,8 @@ import Tester.Osoba;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 public class MainWindow extends JFrame {
 
@@ -16,21 +18,23 @@ public class MainWindow extends JFrame {
         super("HeapFile GUI");
         this.controller = controller;
 
-        this.osobaForm = new OsobaForm(controller, this::refreshBlocks);
-        this.blocksPanel = new BlockView();
+        this.blocksPanel = new BlockView(controller);
+        this.osobaForm = new OsobaForm(controller, this.blocksPanel::blocksChanged);
 
         this.setLayout(new BorderLayout());
         this.add(this.osobaForm, BorderLayout.NORTH);
-        this.add(new JScrollPane(this.blocksPanel), BorderLayout.CENTER);
+        this.add(this.blocksPanel, BorderLayout.CENTER);
 
         this.setSize(900,700);
         this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                MainWindow.this.controller.close();
+            }
+        });
         this.setVisible(true);
 
-        this.refreshBlocks();
-    }
-
-    private void refreshBlocks() {
-        this.blocksPanel.updateBlocks(this.controller.loadBlocks());
+        this.blocksPanel.showPage(0);
     }
 }
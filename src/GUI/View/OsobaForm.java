@@ -1,12 +1,16 @@
 package GUI.View;
 
+import DS.Block;
 import GUI.Controller.AppController;
 import Tester.Osoba;
 
 import javax.swing.*;
 import java.awt.*;
 import java.util.Date;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 
 public class OsobaForm extends JPanel {
 
@@ -17,7 +21,8 @@ public class OsobaForm extends JPanel {
     private final JSpinner dateSpinner;
     private final JTextField bulkGenerateField;
 
-    public OsobaForm(AppController controller, Runnable onUpdate) {
+    //onUpdate dostane index zmeneneho bloku, pri hromadnom vkladani Block.NO_BLOCK
+    public OsobaForm(AppController controller, IntConsumer onUpdate) {
 
         this.setLayout(new GridLayout(2,1));
 
@@ -67,19 +72,24 @@ public class OsobaForm extends JPanel {
                     (Date) this.dateSpinner.getValue(),
                     this.uuidField.getText()
             );
-            controller.insertOsoba(o);
-            onUpdate.run();
+            this.runInBackground(() -> controller.insertOsoba(o), onUpdate::accept);
         });
 
         deleteBtn.addActionListener(e -> {
-            controller.deleteOsoba(Integer.parseInt(this.blockIndexField.getText()), this.uuidField.getText());
-            onUpdate.run();
+            int blockIndex = Integer.parseInt(this.blockIndexField.getText());
+            String uuid = this.uuidField.getText();
+            this.runInBackground(() -> controller.deleteOsoba(blockIndex, uuid), deleted -> onUpdate.accept(blockIndex));
         });
 
+        // bez zadaneho indexu bloku sa hlada len podla UUID
         findBtn.addActionListener(e -> {
-            Osoba o = controller.findOsoba(Integer.parseInt(this.blockIndexField.getText()), this.uuidField.getText());
-            JOptionPane.showMessageDialog(this,
-                    (o == null) ? "Not found" : o.toString());
+            String blockIndexText = this.blockIndexField.getText().trim();
+            String uuid = this.uuidField.getText();
+            Supplier<Osoba> find = blockIndexText.isEmpty()
+                    ? () -> controller.findOsobaByKey(uuid)
+                    : () -> controller.findOsoba(Integer.parseInt(blockIndexText), uuid);
+            this.runInBackground(find, o ->
+                    JOptionPane.showMessageDialog(this, (o == null) ? "Not found" : o.toString()));
         });
 
         genBtn.addActionListener(e -> {
@@ -93,11 +103,10 @@ public class OsobaForm extends JPanel {
         bulkGenBtn.addActionListener(e -> {
             try {
                 int count = Integer.parseInt(this.bulkGenerateField.getText());
-                for (int i = 0; i < count; i++) {
-                    Osoba rand = Osoba.generateRandom();
-                    controller.insertOsoba(rand);
-                }
-                onUpdate.run();
+                this.runInBackground(() -> {
+                    controller.insertRandom(count);
+                    return null;
+                }, ignored -> onUpdate.accept(Block.NO_BLOCK));
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(this, "Invalid number.");
             }
@@ -114,4 +123,23 @@ public class OsobaForm extends JPanel {
 
         this.add(buttons);
     }
+
+    //operacia nad suborom bezi v SwingWorker vlakne, vysledok sa spracuje uz na EDT
+    private <R> void runInBackground(Supplier<R> operation, Consumer<R> onDone) {
+        new SwingWorker<R, Void>() {
+            @Override
+            protected R doInBackground() {
+                return operation.get();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    onDone.accept(this.get());
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(OsobaForm.this, "Operation failed: " + e.getCause());
+                }
+            }
+        }.execute();
+    }
 }
@@ -0,0 +1,15 @@
+package Interface;
+
+import java.nio.ByteBuffer;
+
+public interface IBlockStorage extends AutoCloseable {
+    void readBlock(int blockIndex, ByteBuffer destination);
+    void readBlocks(int firstBlockIndex, ByteBuffer destination);
+    void writeBlock(int blockIndex, ByteBuffer source);
+    void writeBlocks(int firstBlockIndex, ByteBuffer source);
+    void truncate(int blockCount);
+    void force();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,13 @@
+package Interface;
+
+import DS.Block;
+
+public interface IBufferManager<T extends IRecord<T>> {
+    Block<T> pin(int blockIndex);
+    Block<T> pinNew(int blockIndex);
+    void unpin(int blockIndex, boolean dirty);
+    void discard(int blockIndex);
+    void flush();
+    long getHits();
+    long getMisses();
+}
@@ -1,7 +1,19 @@
 package Interface;
 
+import java.nio.ByteBuffer;
+
 public interface IByteOperation<T> {
-    T fromByteArray(byte[] bytesArray);
-    byte[] toByteArray();
+    T readFrom(ByteBuffer buffer, int offset);
+    void writeTo(ByteBuffer buffer, int offset);
     int getSize();
+
+    default T fromByteArray(byte[] bytesArray) {
+        return this.readFrom(ByteBuffer.wrap(bytesArray), 0);
+    }
+
+    default byte[] toByteArray() {
+        byte[] bytes = new byte[this.getSize()];
+        this.writeTo(ByteBuffer.wrap(bytes), 0);
+        return bytes;
+    }
 }
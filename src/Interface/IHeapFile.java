@@ -0,0 +1,16 @@
+package Interface;
+
+import DS.Block;
+
+public interface IHeapFile<T extends IRecord<T>> extends AutoCloseable {
+    int insertRecord(T record);
+    boolean deleteRecord(int index, T record);
+    T findRecord(int index, T record);
+    Block<T> getBlock(int blockIndex);
+    int getTotalBlocks();
+    int getTotalRecords();
+    Class<T> getRecordClass();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,27 @@
+package Interface;
+
+import DS.LatencyHistogram;
+
+public interface IHeapFileMetricsMXBean {
+    long getBlockReads();
+    long getBlockWrites();
+    long getBytesRead();
+    long getBytesWritten();
+    long getMetadataFlushes();
+    long getLogForces();
+
+    int getTotalBlocks();
+    int getTotalRecords();
+    int getEmptyBlockCount();
+    int getPartiallyEmptyBlockCount();
+
+    long getCacheHits();
+    long getCacheMisses();
+    double getCacheHitRatio();
+
+    LatencyHistogram.Snapshot getInsertLatency();
+    LatencyHistogram.Snapshot getFindLatency();
+    LatencyHistogram.Snapshot getDeleteLatency();
+
+    void resetLatencies();
+}
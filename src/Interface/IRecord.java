@@ -1,15 +1,59 @@
 package Interface;
 
+import java.nio.ByteBuffer;
+
 public interface IRecord<T> extends IByteOperation<T> {
     boolean isEqual(T object);
     T createCopy();
 
     @Override
-    T fromByteArray(byte[] bytesArray);
+    int getSize();
 
-    @Override
-    byte[] toByteArray();
+    //zaznamy s premenlivou dlzkou sa ukladaju do stranok so slotmi - getSize je potom najvacsia velkost
+    //a getStoredSize pocet bajtov, ktore naozaj zapise writeTo
+    default boolean hasVariableLength() {
+        return false;
+    }
 
-    @Override
-    int getSize();
+    default int getStoredSize() {
+        return this.getSize();
+    }
+
+    //volitelne - poloha kluca v serializovanom zazname, bloky potom porovnavaju kluc priamo v bajtoch
+    default int getKeyOffset() {
+        return -1;
+    }
+
+    default int getKeyLength() {
+        return 0;
+    }
+
+    //dlzka kluca zaznamu ulozeneho v buffri na danom posune - kluc s premenlivou dlzkou ju musi precitat z bajtov
+    default int getKeyLength(ByteBuffer buffer, int offset) {
+        return this.getKeyLength();
+    }
+
+    //zaznam s klucom v ulozenom tvare ma hash kluca - hesovane subory a filtre klucov ho inak nepouziju
+    default boolean hasKeyHash() {
+        return this.getKeyOffset() >= 0;
+    }
+
+    //hash kluca je FNV-1a cez ulozene bajty kluca, zaznamy, ktore isEqual, maju preto rovnaky hash a da sa
+    //spocitat aj priamo zo stranky - prekrytie pri zazname s klucom musi vratit tu istu hodnotu
+    //zaznam bez kluca vrati 0, ak hash neprekryje
+    default int getHash() {
+        int keyOffset = this.getKeyOffset();
+        if (keyOffset < 0) {
+            return 0;
+        }
+        return hashKey(ByteBuffer.wrap(this.toByteArray()), keyOffset, this.getKeyLength());
+    }
+
+    static int hashKey(ByteBuffer buffer, int offset, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ (buffer.get(offset + i) & 0xFF)) * 0x01000193;
+        }
+        return hash;
+    }
 }
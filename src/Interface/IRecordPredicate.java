@@ -0,0 +1,8 @@
+package Interface;
+
+import java.nio.ByteBuffer;
+
+//podmienka vyhodnotena priamo nad serializovanym zaznamom - offset ukazuje na zaciatok zaznamu
+public interface IRecordPredicate {
+    boolean test(ByteBuffer buffer, int offset);
+}
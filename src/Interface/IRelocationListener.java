@@ -0,0 +1,5 @@
+package Interface;
+
+public interface IRelocationListener<T> {
+    void recordMoved(T record, int fromBlock, int toBlock);
+}
@@ -4,6 +4,8 @@ import GUI.View.MainWindow;
 import Tester.Osoba;
 import Tester.StructureTester;
 
+import javax.swing.*;
+
 public class Main {
     public static void main(String[] args) {
         /*for (int test = 0; test < 20; test++) {
@@ -27,6 +29,6 @@ public class Main {
 
         AppController controller = new AppController(heap);
 
-        new MainWindow(controller);
+        SwingUtilities.invokeLater(() -> new MainWindow(controller));
     }
 }
@@ -0,0 +1,65 @@
+package Tester;
+
+import DS.ConcurrentHeapFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// kazde vlakno ma vlastny StructureTester s vlastnym ocakavanym modelom,
+// vsetky vsak naraz pracuju nad tym istym suborom
+public class ConcurrentStressTester {
+
+    private static final String FILE_NAME = "stressHeap.bin";
+    private static final int BLOCK_SIZE = 1024;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.currentTimeMillis();
+        System.out.println("Testujem " + threads + " vlaknami zo seedom: " + seed);
+
+        HeapFileBenchmark.deleteFiles(FILE_NAME);
+        int expectedRecords = 0;
+        try (ConcurrentHeapFile<Osoba> heap = new ConcurrentHeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE)) {
+            List<StructureTester<Osoba>> testers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                testers.add(new StructureTester<>(heap, seed + i));
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>(threads);
+                for (StructureTester<Osoba> tester : testers) {
+                    futures.add(executor.submit(() -> tester.performRandomOperations(operations, false)));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            for (StructureTester<Osoba> tester : testers) {
+                tester.verifyInserted();
+                expectedRecords += tester.getInsertedCount();
+            }
+            if (heap.getTotalRecords() != expectedRecords) {
+                throw new IllegalStateException("Record count mismatch: heap " + heap.getTotalRecords()
+                        + ", expected " + expectedRecords);
+            }
+        }
+
+        // po znovuotvoreni sa volne miesto a pocet zaznamov poskladaju z blokov
+        try (ConcurrentHeapFile<Osoba> heap = new ConcurrentHeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE)) {
+            if (heap.getTotalRecords() != expectedRecords) {
+                throw new IllegalStateException("Record count mismatch after reopen: heap " + heap.getTotalRecords()
+                        + ", expected " + expectedRecords);
+            }
+        }
+        HeapFileBenchmark.deleteFiles(FILE_NAME);
+        System.out.println("Seed: " + seed + " OK, zaznamov: " + expectedRecords);
+    }
+}
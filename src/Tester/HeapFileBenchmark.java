@@ -0,0 +1,513 @@
+package Tester;
+
+import DS.Block;
+import DS.ConcurrentHeapFile;
+import DS.Durability;
+import DS.ExtendibleHashFile;
+import DS.HeapFile;
+import DS.StorageMode;
+import Interface.IHeapFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class HeapFileBenchmark {
+
+    private static final String FILE_NAME = "benchmarkHeap.bin";
+    private static final int BLOCK_SIZE = 1024;
+
+    public static void main(String[] args) {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        deleteFiles(FILE_NAME);
+        try (HeapFile<Osoba> heap = new HeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE, 0)) {
+            List<Osoba> osoby = new ArrayList<>(records);
+            int[] blockIndexes = new int[records];
+
+            long start = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                Osoba osoba = Osoba.generateRandom();
+                osoby.add(osoba);
+                blockIndexes[i] = heap.insertRecord(osoba);
+            }
+            report("insert", records, System.nanoTime() - start);
+
+            Random random = new Random(42);
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                int r = random.nextInt(records);
+                heap.findRecord(blockIndexes[r], osoby.get(r));
+            }
+            report("find (shared channel)", lookups, System.nanoTime() - start);
+
+            random = new Random(42);
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                heap.getBlock(random.nextInt(heap.getTotalBlocks()));
+            }
+            report("block read (shared channel)", lookups, System.nanoTime() - start);
+
+            random = new Random(42);
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                readBlockReopening(random.nextInt(heap.getTotalBlocks()));
+            }
+            report("block read (open/close per access)", lookups, System.nanoTime() - start);
+        }
+        deleteFiles(FILE_NAME);
+
+        benchmarkBufferPool(records, lookups, 0);
+        benchmarkBufferPool(records, lookups, HeapFile.DEFAULT_BUFFER_FRAMES);
+        benchmarkBufferPool(records, lookups, 4096);
+
+        benchmarkStorage(records, lookups, StorageMode.CHANNEL);
+        benchmarkStorage(records, lookups, StorageMode.MAPPED);
+
+        benchmarkBulkLoad(records * 10);
+
+        for (Durability durability : Durability.values()) {
+            benchmarkDurability(records, durability);
+        }
+
+        benchmarkHashFile(records, lookups);
+
+        benchmarkAsync(records);
+
+        benchmarkCompaction(records * 5);
+
+        benchmarkSnapshot(records * 5);
+
+        benchmarkKeyLookup(records * 5, 1000);
+
+        benchmarkReadAhead(records * 5, true);
+        benchmarkReadAhead(records * 5, false);
+
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            benchmarkConcurrent(records, lookups, threads, false);
+            benchmarkConcurrent(records, lookups, threads, true);
+        }
+    }
+
+    //sekvencny prechod blokmi cez getBlock po znovuotvoreni suboru - s citanim dopredu a bez neho,
+    //nahodne citania overia, ze sa prefetch pri nahodnom pristupe zastavi
+    private static void benchmarkReadAhead(int records, boolean enabled) {
+        deleteFiles(FILE_NAME);
+        try (HeapFile<Osoba> heap = new HeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE)) {
+            List<Osoba> osoby = new ArrayList<>(records);
+            for (int i = 0; i < records; i++) {
+                osoby.add(Osoba.generateRandom());
+            }
+            heap.insertAll(osoby);
+        }
+
+        String mode = enabled ? "read-ahead" : "no read-ahead";
+        try (HeapFile<Osoba> heap = new HeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE)) {
+            heap.setReadAheadEnabled(enabled);
+            int blocks = heap.getTotalBlocks();
+            long start = System.nanoTime();
+            for (int i = 0; i < blocks; i++) {
+                heap.getBlock(i);
+            }
+            report("sequential getBlock (" + mode + ")", blocks, System.nanoTime() - start);
+            System.out.println("  read-ahead hits: " + heap.getReadAheadHits() + ", prefetched: " + heap.getReadAheadPages());
+
+            long prefetchedBefore = heap.getReadAheadPages();
+            Random random = new Random(42);
+            start = System.nanoTime();
+            for (int i = 0; i < blocks; i++) {
+                heap.getBlock(random.nextInt(blocks));
+            }
+            report("random getBlock (" + mode + ")", blocks, System.nanoTime() - start);
+            System.out.println("  prefetched during random reads: " + (heap.getReadAheadPages() - prefetchedBefore));
+        }
+        deleteFiles(FILE_NAME);
+    }
+
+    //hladanie podla kluca bez indexu bloku - Bloom filtre blokov proti prechodu celeho suboru
+    private static void benchmarkKeyLookup(int records, int lookups) {
+        deleteFiles(FILE_NAME);
+        try (HeapFile<Osoba> heap = new HeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE)) {
+            List<Osoba> osoby = new ArrayList<>(records);
+            for (int i = 0; i < records; i++) {
+                osoby.add(Osoba.generateRandom());
+            }
+            heap.insertAll(osoby);
+            Random random = new Random(42);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                Osoba key = Osoba.fromUUID(osoby.get(random.nextInt(records)).getUUID());
+                if (heap.findByKey(key) == null) {
+                    throw new IllegalStateException("Key not found: " + key.getUUID());
+                }
+            }
+            report("findByKey (bloom filter)", lookups, System.nanoTime() - start);
+            System.out.printf("  blocks read per lookup: %.2f of %d%n",
+                    (double) heap.getKeyFilterProbes() / lookups, heap.getTotalBlocks());
+
+            int scanned = Math.max(1, lookups / 100);
+            start = System.nanoTime();
+            for (int i = 0; i < scanned; i++) {
+                String uuid = osoby.get(random.nextInt(records)).getUUID();
+                if (heap.scan(true).noneMatch(o -> o.getUUID().equals(uuid))) {
+                    throw new IllegalStateException("Key not found: " + uuid);
+                }
+            }
+            report("find by key (full scan)", scanned, System.nanoTime() - start);
+        }
+        deleteFiles(FILE_NAME);
+    }
+
+    //subor so 70 % zaznamov sa exportuje do snapshotu a naimportuje do noveho, uplne zaplneneho suboru
+    private static void benchmarkSnapshot(int records) {
+        String snapshotName = "benchmarkSnapshot.bin";
+        String importName = "benchmarkImport.bin";
+        deleteFiles(FILE_NAME);
+        deleteFiles(importName);
+        try (HeapFile<Osoba> heap = new HeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE)) {
+            List<Osoba> osoby = new ArrayList<>(records);
+            for (int i = 0; i < records; i++) {
+                osoby.add(Osoba.generateRandom());
+            }
+            int[] blockIndexes = heap.insertAll(osoby);
+            Random random = new Random(42);
+            for (int i = 0; i < records; i++) {
+                if (random.nextInt(10) < 3) {
+                    heap.deleteRecord(blockIndexes[i], osoby.get(i));
+                }
+            }
+            heap.flush();
+
+            long start = System.nanoTime();
+            int exported;
+            try (BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(snapshotName))) {
+                exported = heap.exportSnapshot(out);
+            }
+            report("snapshot export", exported, System.nanoTime() - start);
+
+            try (HeapFile<Osoba> copy = new HeapFile<>(importName, Osoba.class, BLOCK_SIZE)) {
+                start = System.nanoTime();
+                try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(snapshotName))) {
+                    report("snapshot import", copy.importSnapshot(in), System.nanoTime() - start);
+                }
+                System.out.println("  blocks: " + heap.getTotalBlocks() + " -> " + copy.getTotalBlocks());
+            }
+            System.out.printf("  snapshot %d kB, data file %d kB%n",
+                    new File(snapshotName).length() / 1024, new File(FILE_NAME).length() / 1024);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        new File(snapshotName).delete();
+        deleteFiles(FILE_NAME);
+        deleteFiles(importName);
+    }
+
+    //po zmazani 80 % zaznamov sa subor zmensi po krokoch a porovna sa cas prechodu pred a po kompakcii
+    private static void benchmarkCompaction(int records) {
+        deleteFiles(FILE_NAME);
+        try (HeapFile<Osoba> heap = new HeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE)) {
+            List<Osoba> osoby = new ArrayList<>(records);
+            List<Integer> blockIndexes = new ArrayList<>(records);
+            for (int i = 0; i < records; i++) {
+                Osoba osoba = Osoba.generateRandom();
+                osoby.add(osoba);
+                blockIndexes.add(heap.insertRecord(osoba));
+            }
+            Random random = new Random(42);
+            for (int i = 0; i < records; i++) {
+                if (random.nextInt(5) != 0) {
+                    heap.deleteRecord(blockIndexes.get(i), osoby.get(i));
+                }
+            }
+            heap.flush();
+
+            int blocksBefore = heap.getTotalBlocks();
+            long start = System.nanoTime();
+            int remaining = heap.scan().mapToInt(o -> 1).sum();
+            report("scan before compaction", remaining, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            int moved = 0;
+            int steps = 0;
+            int step;
+            while ((step = heap.compact(1000)) > 0) {
+                moved += step;
+                steps++;
+            }
+            report("compact (1000 records per step)", Math.max(moved, 1), System.nanoTime() - start);
+            System.out.println("  blocks: " + blocksBefore + " -> " + heap.getTotalBlocks() + ", steps: " + steps);
+
+            start = System.nanoTime();
+            report("scan after compaction", heap.scan().mapToInt(o -> 1).sum(), System.nanoTime() - start);
+        }
+        deleteFiles(FILE_NAME);
+    }
+
+    //kazde vlozenie z vlastneho virtualneho vlakna - poziadavky na ten isty blok sa spoja do jedneho zapisu
+    private static void benchmarkAsync(int records) {
+        List<Osoba> osoby = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            osoby.add(Osoba.generateRandom());
+        }
+
+        deleteFiles(FILE_NAME);
+        try (HeapFile<Osoba> heap = new HeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE,
+                HeapFile.DEFAULT_BUFFER_FRAMES, StorageMode.CHANNEL, Durability.PER_OP)) {
+            long start = System.nanoTime();
+            for (Osoba osoba : osoby) {
+                heap.insertRecord(osoba);
+            }
+            report("insert (PER_OP, synchronous)", records, System.nanoTime() - start);
+        }
+        deleteFiles(FILE_NAME);
+
+        try (HeapFile<Osoba> heap = new HeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE,
+                HeapFile.DEFAULT_BUFFER_FRAMES, StorageMode.CHANNEL, Durability.PER_OP);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>(records);
+            long start = System.nanoTime();
+            for (Osoba osoba : osoby) {
+                futures.add(CompletableFuture.supplyAsync(() -> heap.insertAsync(osoba), executor)
+                        .thenCompose(future -> future));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+            report("insertAsync (PER_OP, virtual threads)", records, System.nanoTime() - start);
+            System.out.printf("  batches: %d, coalescing ratio: %.1f records per block write%n",
+                    heap.getAsyncBatchCount(), heap.getAsyncCoalescingRatio());
+        }
+        deleteFiles(FILE_NAME);
+    }
+
+    //90 % hladani a 10 % vkladani z viacerych vlakien - HeapFile za jednym globalnym zamkom
+    //oproti ConcurrentHeapFile so zamkami po blokoch
+    private static void benchmarkConcurrent(int records, int operations, int threads, boolean striped) {
+        deleteFiles(FILE_NAME);
+        try (IHeapFile<Osoba> heap = striped
+                ? new ConcurrentHeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE)
+                : new HeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE, 0)) {
+            List<Osoba> osoby = new ArrayList<>(records);
+            int[] blockIndexes = new int[records];
+            for (int i = 0; i < records; i++) {
+                Osoba osoba = Osoba.generateRandom();
+                osoby.add(osoba);
+                blockIndexes[i] = heap.insertRecord(osoba);
+            }
+
+            Object globalLock = new Object();
+            int perThread = operations / threads;
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                workers[t] = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < perThread; i++) {
+                        boolean insert = random.nextInt(10) == 0;
+                        int r = random.nextInt(records);
+                        if (striped) {
+                            runOperation(heap, insert, osoby.get(r), blockIndexes[r]);
+                        } else {
+                            synchronized (globalLock) {
+                                runOperation(heap, insert, osoby.get(r), blockIndexes[r]);
+                            }
+                        }
+                    }
+                });
+            }
+
+            long start = System.nanoTime();
+            for (Thread worker : workers) {
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            String name = striped ? "striped locks" : "global lock";
+            report("90/10 find/insert (" + name + ", " + threads + " thr)", perThread * threads, System.nanoTime() - start);
+        }
+        deleteFiles(FILE_NAME);
+    }
+
+    private static void runOperation(IHeapFile<Osoba> heap, boolean insert, Osoba osoba, int blockIndex) {
+        if (insert) {
+            heap.insertRecord(Osoba.generateRandom());
+        } else {
+            heap.findRecord(blockIndex, osoba);
+        }
+    }
+
+    private static void benchmarkHashFile(int records, int lookups) {
+        deleteFiles(FILE_NAME);
+        try (ExtendibleHashFile<Osoba> hashFile = new ExtendibleHashFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE)) {
+            List<Osoba> osoby = new ArrayList<>(records);
+            long start = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                Osoba osoba = Osoba.generateRandom();
+                osoby.add(osoba);
+                hashFile.insert(osoba);
+            }
+            report("hash file insert", records, System.nanoTime() - start);
+
+            Random random = new Random(42);
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                hashFile.find(Osoba.fromUUID(osoby.get(random.nextInt(records)).getUUID()));
+            }
+            report("hash file find by UUID", lookups, System.nanoTime() - start);
+        }
+        deleteFiles(FILE_NAME);
+    }
+
+    private static void benchmarkDurability(int records, Durability durability) {
+        deleteFiles(FILE_NAME);
+        try (HeapFile<Osoba> heap = new HeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE,
+                HeapFile.DEFAULT_BUFFER_FRAMES, StorageMode.CHANNEL, durability)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                heap.insertRecord(Osoba.generateRandom());
+            }
+            report("insert (" + durability + ")", records, System.nanoTime() - start);
+        }
+        deleteFiles(FILE_NAME);
+    }
+
+    private static void benchmarkBulkLoad(int records) {
+        List<Osoba> osoby = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            osoby.add(Osoba.generateRandom());
+        }
+
+        deleteFiles(FILE_NAME);
+        try (HeapFile<Osoba> heap = new HeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE)) {
+            long start = System.nanoTime();
+            heap.insertAll(osoby);
+            heap.force();
+            report("insertAll", records, System.nanoTime() - start);
+            System.out.printf("  records per block: %.1f (block factor for %d-byte records: %d)%n",
+                    (double) records / heap.getTotalBlocks(), heap.getBlock(0).getRecordSize(), heap.getBlock(0).getBlockFactor());
+
+            start = System.nanoTime();
+            int counted = 0;
+            for (int i = 0; i < heap.getTotalBlocks(); i++) {
+                Block<Osoba> block = heap.getBlock(i);
+                for (int j = 0; j < block.getValidCount(); j++) {
+                    block.getRecordAt(j);
+                    counted++;
+                }
+            }
+            report("full scan (getBlock per block)", counted, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            report("full scan (scan())", heap.scan().mapToInt(o -> 1).sum(), System.nanoTime() - start);
+
+            start = System.nanoTime();
+            long born = heap.scan(true).filter(o -> o.getDatumNarodenia().getTime() < 0).count();
+            report("full scan (flyweight filter)", records, System.nanoTime() - start);
+            System.out.println("  born before 1970: " + born);
+
+            Date limit = new Date(800_000_000_000L);
+            for (int threads : new int[]{1, 2, 4, 8}) {
+                start = System.nanoTime();
+                int matches = heap.parallelScan(Osoba.bornBefore(limit), threads).size();
+                report("parallelScan (" + threads + " threads)", records, System.nanoTime() - start);
+                System.out.println("  matches: " + matches);
+            }
+        }
+        deleteFiles(FILE_NAME);
+    }
+
+    private static void benchmarkStorage(int records, int lookups, StorageMode mode) {
+        deleteFiles(FILE_NAME);
+        try (HeapFile<Osoba> heap = new HeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE, 0, mode)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                heap.insertRecord(Osoba.generateRandom());
+            }
+            report("insert (" + mode + ")", records, System.nanoTime() - start);
+
+            Random random = new Random(42);
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                heap.getBlock(random.nextInt(heap.getTotalBlocks()));
+            }
+            report("block read (" + mode + ")", lookups, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            heap.force();
+            report("force (" + mode + ")", 1, System.nanoTime() - start);
+        }
+        deleteFiles(FILE_NAME);
+    }
+
+    private static void benchmarkBufferPool(int records, int lookups, int frames) {
+        deleteFiles(FILE_NAME);
+        try (HeapFile<Osoba> heap = new HeapFile<>(FILE_NAME, Osoba.class, BLOCK_SIZE, frames)) {
+            List<Osoba> osoby = new ArrayList<>(records);
+            int[] blockIndexes = new int[records];
+
+            long start = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                Osoba osoba = Osoba.generateRandom();
+                osoby.add(osoba);
+                blockIndexes[i] = heap.insertRecord(osoba);
+            }
+            report("insert (" + frames + " frames)", records, System.nanoTime() - start);
+
+            Random random = new Random(42);
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                int r = random.nextInt(records);
+                heap.findRecord(blockIndexes[r], osoby.get(r));
+            }
+            report("find (" + frames + " frames)", lookups, System.nanoTime() - start);
+            System.out.println("  cache hits: " + heap.getCacheHits() + ", misses: " + heap.getCacheMisses()
+                    + ", direct buffers allocated: " + heap.getDirectBufferAllocations());
+            System.out.println("  find latency: " + heap.getMetrics().getFindLatency());
+            System.out.println("  block reads: " + heap.getMetrics().getBlockReads()
+                    + ", block writes: " + heap.getMetrics().getBlockWrites());
+        }
+        deleteFiles(FILE_NAME);
+    }
+
+    //povodny sposob citania - novy RandomAccessFile pre kazdy blok
+    private static Block<Osoba> readBlockReopening(int blockIndex) {
+        Block<Osoba> block = new Block<>(Osoba.class, BLOCK_SIZE);
+        try (RandomAccessFile raf = new RandomAccessFile(FILE_NAME, "r")) {
+            raf.seek((long) blockIndex * BLOCK_SIZE);
+            byte[] bytes = new byte[BLOCK_SIZE];
+            raf.readFully(bytes);
+            block.fromByteArray(bytes);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return block;
+    }
+
+    static void report(String name, int operations, long nanos) {
+        double seconds = nanos / 1_000_000_000.0;
+        System.out.printf("%-40s %10d ops %10.1f ops/s %8.2f us/op%n",
+                name, operations, operations / seconds, nanos / 1000.0 / operations);
+    }
+
+    static void deleteFiles(String baseFileName) {
+        for (String suffix : new String[]{"", "_fsm.bin", "_wal.log", "_dir.bin", "_bloom.bin"}) {
+            new File(baseFileName + suffix).delete();
+        }
+    }
+}
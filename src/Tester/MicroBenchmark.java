@@ -0,0 +1,179 @@
+package Tester;
+
+import DS.Block;
+import DS.HeapFile;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+// mikrobenchmarky horucich ciest Block, Osoba a HeapFile v style JMH - zahrievacie a meracie iteracie
+// s pevnou dlzkou, vysledok do "ciernej diery" a alokovane bajty na operaciu z ThreadMXBean
+// argumenty: blockSizes=512,4096,65536 records=1000,100000 fill=0.5,1.0 (zoznamy oddelene ciarkou)
+public class MicroBenchmark {
+
+    private static final String FILE_NAME = "microbenchmarkHeap.bin";
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 200_000_000L;
+    private static final int OPERATIONS_PER_CHECK = 64;
+
+    // cierna diera - zapis do volatile pola zabrani JIT odstranit vysledok operacie
+    private static volatile Object sink;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int[] blockSizes = {512, 4096, 65536};
+        int[] recordCounts = {1000, 100_000};
+        double[] fillFactors = {0.5, 1.0};
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "blockSizes" -> blockSizes = Arrays.stream(parts[1].split(",")).mapToInt(Integer::parseInt).toArray();
+                case "records" -> recordCounts = Arrays.stream(parts[1].split(",")).mapToInt(Integer::parseInt).toArray();
+                case "fill" -> fillFactors = Arrays.stream(parts[1].split(",")).mapToDouble(Double::parseDouble).toArray();
+                default -> throw new IllegalArgumentException("Unknown parameter: " + arg);
+            }
+        }
+
+        System.out.printf("%-34s %-34s %12s %10s %12s%n", "Benchmark", "Params", "ns/op", "error", "alloc B/op");
+
+        benchmarkOsoba();
+        for (int blockSize : blockSizes) {
+            benchmarkBlock(blockSize);
+        }
+        for (int blockSize : blockSizes) {
+            for (int records : recordCounts) {
+                for (double fill : fillFactors) {
+                    benchmarkHeapFile(blockSize, records, fill);
+                }
+            }
+        }
+    }
+
+    private static void benchmarkOsoba() {
+        Osoba osoba = Osoba.generateRandom();
+        byte[] bytes = osoba.toByteArray();
+        Osoba target = new Osoba();
+        measure("Osoba.toByteArray", "", i -> sink = osoba.toByteArray());
+        measure("Osoba.fromByteArray", "", i -> sink = target.fromByteArray(bytes));
+    }
+
+    private static void benchmarkBlock(int blockSize) {
+        Block<Osoba> block = new Block<>(Osoba.class, blockSize);
+        while (!block.isFull()) {
+            block.addRecord(Osoba.generateRandom());
+        }
+        byte[] bytes = block.toByteArray();
+        Block<Osoba> target = new Block<>(Osoba.class, blockSize);
+        String params = "blockSize=" + blockSize;
+        measure("Block.toByteArray", params, i -> sink = block.toByteArray());
+        measure("Block.fromByteArray", params, i -> {
+            target.fromByteArray(bytes);
+            sink = target;
+        });
+        measure("Block.fromByteArray+decode", params, i -> {
+            target.fromByteArray(bytes);
+            for (int j = 0; j < target.getValidCount(); j++) {
+                sink = target.getRecordAt(j);
+            }
+        });
+    }
+
+    //najprv sa vlozi records / fill zaznamov a nahodne sa zmaze tolko, aby ich ostalo records
+    private static void benchmarkHeapFile(int blockSize, int records, double fill) {
+        String params = "blockSize=" + blockSize + " records=" + records + " fill=" + fill;
+        HeapFileBenchmark.deleteFiles(FILE_NAME);
+        try (HeapFile<Osoba> heap = new HeapFile<>(FILE_NAME, Osoba.class, blockSize)) {
+            int loaded = (int) Math.ceil(records / fill);
+            List<Osoba> osoby = new ArrayList<>(loaded);
+            for (int i = 0; i < loaded; i++) {
+                osoby.add(Osoba.generateRandom());
+            }
+            int[] blockIndexes = heap.insertAll(osoby);
+
+            Random random = new Random(42);
+            List<Osoba> live = new ArrayList<>(records);
+            List<Integer> liveIndexes = new ArrayList<>(records);
+            int toDelete = loaded - records;
+            for (int i = 0; i < loaded; i++) {
+                if (toDelete > 0 && random.nextInt(loaded - i) < toDelete) {
+                    heap.deleteRecord(blockIndexes[i], osoby.get(i));
+                    toDelete--;
+                } else {
+                    live.add(osoby.get(i));
+                    liveIndexes.add(blockIndexes[i]);
+                }
+            }
+
+            // rozne zaznamy, aby mazanie a vratenie jedneho neovplyvnilo iny; pocet je mocnina dvojky kvoli maske
+            Osoba[] probes = new Osoba[Integer.highestOneBit(Math.min(1024, live.size()))];
+            int[] probeIndexes = new int[probes.length];
+            int step = live.size() / probes.length;
+            for (int i = 0; i < probes.length; i++) {
+                probes[i] = live.get(i * step);
+                probeIndexes[i] = liveIndexes.get(i * step);
+            }
+
+            measure("HeapFile.findRecord", params, i -> {
+                int p = i & (probes.length - 1);
+                sink = heap.findRecord(probeIndexes[p], probes[p]);
+            });
+            // mazanie a vratenie toho isteho zaznamu drzi velkost suboru pocas merania konstantnu
+            measure("HeapFile.deleteRecord+insertRecord", params, i -> {
+                int p = i & (probes.length - 1);
+                heap.deleteRecord(probeIndexes[p], probes[p]);
+                probeIndexes[p] = heap.insertRecord(probes[p]);
+            });
+            Osoba[] fresh = new Osoba[4096];
+            for (int i = 0; i < fresh.length; i++) {
+                fresh[i] = Osoba.generateRandom();
+            }
+            measure("HeapFile.insertRecord", params, i -> sink = heap.insertRecord(fresh[i & (fresh.length - 1)]));
+        }
+        HeapFileBenchmark.deleteFiles(FILE_NAME);
+    }
+
+    private static void measure(String name, String params, IntConsumer operation) {
+        int counter = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            counter += (int) runIteration(operation, counter)[1];
+        }
+
+        double[] nanosPerOp = new double[MEASUREMENT_ITERATIONS];
+        long allocated = 0;
+        long operations = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long[] result = runIteration(operation, counter);
+            nanosPerOp[i] = (double) result[0] / result[1];
+            operations += result[1];
+            allocated += result[2];
+            counter += (int) result[1];
+        }
+
+        double mean = Arrays.stream(nanosPerOp).average().orElse(0);
+        double variance = Arrays.stream(nanosPerOp).map(v -> (v - mean) * (v - mean)).sum() / (nanosPerOp.length - 1);
+        System.out.printf("%-34s %-34s %12.1f %10.1f %12.1f%n",
+                name, params, mean, Math.sqrt(variance), (double) allocated / operations);
+    }
+
+    //vrati {trvanie v ns, pocet operacii, alokovane bajty}
+    private static long[] runIteration(IntConsumer operation, int firstOperation) {
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        int operations = 0;
+        do {
+            for (int i = 0; i < OPERATIONS_PER_CHECK; i++) {
+                operation.accept(firstOperation + operations++);
+            }
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        return new long[]{elapsed, operations, THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore};
+    }
+}
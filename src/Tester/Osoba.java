@@ -1,19 +1,34 @@
 package Tester;
 
+import DS.RecordCodec;
+import DS.RecordField;
 import Interface.IRecord;
+import Interface.IRecordPredicate;
 
-import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
 import java.util.Date;
 import java.util.Random;
 
 public class Osoba implements IRecord<Osoba> {
+    private static final int MAX_MENO_LENGTH = 15;
+    private static final int MAX_PRIEZVISKO_LENGTH = 14;
+    private static final int UUID_LENGTH = 10;
+
+    // retazce maju 1-bajtovu dlzku a su v UTF-8 (dlzka je v bajtoch), zaznam ma najviac 50 bajtov -
+    // ulozia sa len skutocne dlzky retazcov, datum a UUID su vpredu s pevnym posunom
+    private static final RecordCodec<Osoba> CODEC = RecordCodec.compact(Osoba.class, MethodHandles.lookup());
+    private static final int KEY_OFFSET = CODEC.offsetOf("UUID");
+    private static final int DATUM_NARODENIA_OFFSET = CODEC.offsetOf("datumNarodenia");
+
+    @RecordField(order = 2, length = MAX_MENO_LENGTH, encoding = RecordField.Encoding.UTF8)
     private String meno;
-    private final int MAX_MENO_LENGTH = 15;
+    @RecordField(order = 3, length = MAX_PRIEZVISKO_LENGTH, encoding = RecordField.Encoding.UTF8)
     private String priezvisko;
-    private final int MAX_PRIEZVISKO_LENGTH = 14;
+    @RecordField(order = 0)
     private Date datumNarodenia;
+    @RecordField(order = 1, length = UUID_LENGTH, encoding = RecordField.Encoding.UTF8)
     private String UUID;
-    private final int UUID_LENGTH = 10;
 
     public Osoba() {
         this.meno = "";
@@ -22,11 +37,12 @@ public class Osoba implements IRecord<Osoba> {
         this.UUID = "";
     }
 
+    //UUID sa hned upravi na ulozeny tvar - isEqual potom plati presne vtedy, ked sa zhoduju bajty kluca v bloku
     public Osoba(String meno, String priezvisko, Date datumNarodenia, String UUID) {
         this.meno = meno;
         this.priezvisko = priezvisko;
         this.datumNarodenia = datumNarodenia;
-        this.UUID = UUID;
+        this.UUID = CODEC.fit("UUID", UUID);
     }
 
     public String getMeno() {
@@ -56,75 +72,60 @@ public class Osoba implements IRecord<Osoba> {
     }
 
     @Override
-    public Osoba fromByteArray(byte[] bytesArray) {
-        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytesArray))) {
-            int menoLen = in.readInt();
-            String meno = this.readFixedString(in, this.MAX_MENO_LENGTH).substring(0, menoLen);
-
-            int priezLen = in.readInt();
-            String priezvisko = this.readFixedString(in, this.MAX_PRIEZVISKO_LENGTH).substring(0, priezLen);
-
-            long dateLong = in.readLong();
-            Date datum = new Date(dateLong);
-
-            int uuidLen = in.readInt();
-            String uuid = this.readFixedString(in, this.UUID_LENGTH).substring(0, uuidLen);
-
-            this.meno = meno;
-            this.priezvisko = priezvisko;
-            this.datumNarodenia = datum;
-            this.UUID = uuid;
-
-            return this;
+    public Osoba readFrom(ByteBuffer buffer, int offset) {
+        return CODEC.read(this, buffer, offset);
+    }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Error deserializing Osoba", e);
-        }
+    @Override
+    public void writeTo(ByteBuffer buffer, int offset) {
+        CODEC.write(this, buffer, offset);
     }
 
     @Override
-    public byte[] toByteArray() {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             DataOutputStream out = new DataOutputStream(baos)) {
-            // Meno
-            out.writeInt(Math.min(this.meno.length(), this.MAX_MENO_LENGTH));
-            this.writeFixedString(out, this.meno, this.MAX_MENO_LENGTH);
+    public int getSize() {
+        return CODEC.getSize();
+    }
 
-            // Priezvisko
-            out.writeInt(Math.min(this.priezvisko.length(), this.MAX_PRIEZVISKO_LENGTH));
-            this.writeFixedString(out, this.priezvisko, this.MAX_PRIEZVISKO_LENGTH);
+    @Override
+    public boolean hasVariableLength() {
+        return true;
+    }
 
-            // Date
-            out.writeLong(this.datumNarodenia.getTime());
+    @Override
+    public int getStoredSize() {
+        return CODEC.getStoredSize(this);
+    }
 
-            // UUID
-            out.writeInt(Math.min(this.UUID.length(), this.UUID_LENGTH));
-            this.writeFixedString(out, this.UUID, this.UUID_LENGTH);
+    @Override
+    public int getKeyOffset() {
+        return KEY_OFFSET;
+    }
 
-            return baos.toByteArray();
+    //dlzka UUID je sucastou kluca, rozne dlhe UUID sa preto lisia uz v prvom bajte
+    @Override
+    public int getKeyLength() {
+        return CODEC.storedWidthOf(this, "UUID");
+    }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Error serializing Osoba", e);
-        }
+    @Override
+    public int getKeyLength(ByteBuffer buffer, int offset) {
+        return CODEC.storedWidthAt("UUID", buffer, offset);
     }
-    private void writeFixedString(DataOutputStream out, String value, int maxLen) throws IOException {
-        for (int i = 0; i < maxLen; i++) {
-            char c = (i < value.length()) ? value.charAt(i) : 0;
-            out.writeChar(c);
-        }
+
+    //ta ista hodnota ako predvoleny hash z ulozenych bajtov UUID, ale bez zapisu zaznamu
+    @Override
+    public int getHash() {
+        return CODEC.hashOf(this, "UUID");
     }
 
-    private String readFixedString(DataInputStream in, int maxLen) throws IOException {
-        char[] chars = new char[maxLen];
-        for (int i = 0; i < maxLen; i++) {
-            chars[i] = in.readChar();
-        }
-        return new String(chars).replace("\u0000", "");
+    public int getDatumNarodeniaOffset() {
+        return DATUM_NARODENIA_OFFSET;
     }
 
-    @Override
-    public int getSize() {
-        return Integer.BYTES * 3 + (Character.BYTES * (this.MAX_MENO_LENGTH + this.MAX_PRIEZVISKO_LENGTH + this.UUID_LENGTH)) + Long.BYTES;
+    //porovnava datum narodenia priamo v serializovanom zazname
+    public static IRecordPredicate bornBefore(Date date) {
+        long limit = date.getTime();
+        return (buffer, offset) -> buffer.getLong(offset + DATUM_NARODENIA_OFFSET) < limit;
     }
 
     @Override
@@ -2,12 +2,19 @@ package Tester;
 
 import DS.Block;
 import DS.HeapFile;
+import DS.LatencyHistogram;
+import Interface.IHeapFile;
 import Interface.IRecord;
 
 import java.util.*;
 
 public class StructureTester<T extends IRecord<T>> {
 
+    public enum Operation { INSERT, DELETE, FIND }
+
+    private static final String LOAD_FILE_NAME = "loadHeap.bin";
+    private static final int VERIFY_SAMPLE = 100;
+
     private static class IndexedRecord<R> {
         final int blockIndex;
         final R record;
@@ -18,12 +25,12 @@ public class StructureTester<T extends IRecord<T>> {
         }
     }
 
-    private final HeapFile<T> heapFile;
+    private final IHeapFile<T> heapFile;
     private final List<List<IRecord<T>>> expectedBlocks;
     private final Random random;
     private final List<IndexedRecord<T>> inserted;
 
-    public StructureTester(HeapFile<T> heapFile, long seed) {
+    public StructureTester(IHeapFile<T> heapFile, long seed) {
         this.heapFile = heapFile;
         this.expectedBlocks = new ArrayList<>();
         this.random = new Random(seed);
@@ -112,6 +119,11 @@ public class StructureTester<T extends IRecord<T>> {
     }
 
     public void performRandomOperations(int count) {
+        this.performRandomOperations(count, true);
+    }
+
+    //verbose = false - bez vypisov, pouziva sa pri testovani viacerymi vlaknami naraz
+    public void performRandomOperations(int count, boolean verbose) {
         for (int i = 0; i < count; i++) {
 
             int op = this.random.nextInt(3); // 0=insert, 1=delete, 2=find
@@ -121,14 +133,18 @@ public class StructureTester<T extends IRecord<T>> {
                 case 0 -> {
                     T rec = this.generateRandomRecord();
                     this.insertRecord(rec);
-                    System.out.println("[INSERT] " + rec);
+                    if (verbose) {
+                        System.out.println("[INSERT] " + rec);
+                    }
                 }
 
                 case 1 -> {
                     if (!this.inserted.isEmpty()) {
                         IndexedRecord<T> entry = this.inserted.remove(this.random.nextInt(this.inserted.size()));
                         this.removeRecord(entry);
-                        System.out.println("[DELETE] " + entry.record);
+                        if (verbose) {
+                            System.out.println("[DELETE] " + entry.record);
+                        }
                     }
                 }
 
@@ -136,13 +152,185 @@ public class StructureTester<T extends IRecord<T>> {
                     if (!this.inserted.isEmpty()) {
                         IndexedRecord<T> entry = this.inserted.get(this.random.nextInt(this.inserted.size()));
                         this.findRecord(entry);
-                        System.out.println("[FIND] " + entry.record);
+                        if (verbose) {
+                            System.out.println("[FIND] " + entry.record);
+                        }
                     }
                 }
             }
-            this.printHeap();
-            this.printExpected();
+            if (verbose) {
+                this.printHeap();
+                this.printExpected();
+            }
+        }
+    }
+
+    //kazdy zaznam, ktory tester este nezmazal, sa musi dat najst v bloku, do ktoreho bol vlozeny
+    public void verifyInserted() {
+        for (IndexedRecord<T> entry : this.inserted) {
+            if (this.heapFile.findRecord(entry.blockIndex, entry.record) == null) {
+                throw new IllegalStateException("Record missing from block " + entry.blockIndex + ": " + entry.record);
+            }
+        }
+    }
+
+    public int getInsertedCount() {
+        return this.inserted.size();
+    }
+
+    //zatazovy rezim bez vypisov - najprv sa vlozi initialRecords zaznamov, potom sa az do uplynutia durationMillis
+    //vyberaju operacie podla vah; meria sa len volanie heap filu
+    //verifyEvery > 0 - vysledok kazdej verifyEvery-tej operacie sa porovna s ocakavanym stavom a skontroluje sa
+    //nahodna vzorka vlozenych zaznamov, 0 - bez kontroly
+    public Map<Operation, LatencyHistogram> runLoad(int insertWeight, int deleteWeight, int findWeight,
+                                                  int initialRecords, long durationMillis, int verifyEvery) {
+        int totalWeight = insertWeight + deleteWeight + findWeight;
+        if (insertWeight < 0 || deleteWeight < 0 || findWeight < 0 || totalWeight == 0) {
+            throw new IllegalArgumentException("Operation weights must be non-negative and not all zero");
+        }
+        for (int i = 0; i < initialRecords; i++) {
+            T rec = this.generateRandomRecord();
+            this.inserted.add(new IndexedRecord<>(this.heapFile.insertRecord(rec), rec));
+        }
+
+        Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+
+        long end = System.nanoTime() + durationMillis * 1_000_000L;
+        for (long i = 1; System.nanoTime() < end; i++) {
+            int pick = this.random.nextInt(totalWeight);
+            Operation operation = pick < insertWeight ? Operation.INSERT
+                    : pick < insertWeight + deleteWeight ? Operation.DELETE : Operation.FIND;
+            if (this.inserted.isEmpty()) {
+                operation = Operation.INSERT;
+            }
+            boolean verify = verifyEvery > 0 && i % verifyEvery == 0;
+
+            switch (operation) {
+                case INSERT -> {
+                    T rec = this.generateRandomRecord();
+                    long start = System.nanoTime();
+                    int blockIndex = this.heapFile.insertRecord(rec);
+                    latencies.get(operation).record(System.nanoTime() - start);
+                    this.inserted.add(new IndexedRecord<>(blockIndex, rec));
+                    if (verify && this.heapFile.findRecord(blockIndex, rec) == null) {
+                        throw new IllegalStateException("Inserted record missing from block " + blockIndex);
+                    }
+                }
+                case DELETE -> {
+                    // vymena s poslednym prvkom, aby mazanie zo zoznamu nebolo linearne
+                    int position = this.random.nextInt(this.inserted.size());
+                    IndexedRecord<T> entry = this.inserted.get(position);
+                    this.inserted.set(position, this.inserted.get(this.inserted.size() - 1));
+                    this.inserted.remove(this.inserted.size() - 1);
+                    long start = System.nanoTime();
+                    boolean removed = this.heapFile.deleteRecord(entry.blockIndex, entry.record);
+                    latencies.get(operation).record(System.nanoTime() - start);
+                    if (verify && !removed) {
+                        throw new IllegalStateException("Delete mismatch: record missing from block " + entry.blockIndex);
+                    }
+                }
+                case FIND -> {
+                    IndexedRecord<T> entry = this.inserted.get(this.random.nextInt(this.inserted.size()));
+                    long start = System.nanoTime();
+                    T found = this.heapFile.findRecord(entry.blockIndex, entry.record);
+                    latencies.get(operation).record(System.nanoTime() - start);
+                    if (verify && found == null) {
+                        throw new IllegalStateException("Find mismatch: record missing from block " + entry.blockIndex);
+                    }
+                }
+            }
+            if (verify) {
+                this.verifySample();
+            }
+        }
+
+        if (verifyEvery > 0) {
+            this.verifyInserted();
+            if (this.heapFile.getTotalRecords() != this.inserted.size()) {
+                throw new IllegalStateException("Record count mismatch: heap " + this.heapFile.getTotalRecords()
+                        + ", expected " + this.inserted.size());
+            }
+        }
+        this.rebuildExpectedBlocks();
+        return latencies;
+    }
+
+    private void verifySample() {
+        for (int i = 0; i < VERIFY_SAMPLE && !this.inserted.isEmpty(); i++) {
+            IndexedRecord<T> entry = this.inserted.get(this.random.nextInt(this.inserted.size()));
+            if (this.heapFile.findRecord(entry.blockIndex, entry.record) == null) {
+                throw new IllegalStateException("Record missing from block " + entry.blockIndex + ": " + entry.record);
+            }
+        }
+    }
+
+    //zatazovy rezim neudrziava model po blokoch, po nom sa posklada z vlozenych zaznamov
+    private void rebuildExpectedBlocks() {
+        this.expectedBlocks.clear();
+        for (IndexedRecord<T> entry : this.inserted) {
+            while (this.expectedBlocks.size() <= entry.blockIndex) {
+                this.expectedBlocks.add(new ArrayList<>());
+            }
+            this.expectedBlocks.get(entry.blockIndex).add(entry.record);
+        }
+        this.trimExpectedBlocks();
+    }
+
+    public static void printLoadReport(Map<Operation, LatencyHistogram> latencies, long durationMillis) {
+        double seconds = durationMillis / 1000.0;
+        long total = 0;
+        System.out.printf("%-8s %10s %12s %10s %10s %10s %10s%n", "op", "count", "ops/s", "p50 us", "p99 us", "p999 us", "max us");
+        for (Map.Entry<Operation, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot();
+            total += snapshot.getCount();
+            System.out.printf("%-8s %10d %12.1f %10.1f %10.1f %10.1f %10.1f%n", entry.getKey(), snapshot.getCount(),
+                    snapshot.getCount() / seconds, snapshot.getP50Micros(), snapshot.getP99Micros(),
+                    snapshot.getP999Micros(), snapshot.getMaxMicros());
+        }
+        System.out.printf("%-8s %10d %12.1f%n", "total", total, total / seconds);
+    }
+
+    // zatazovy test pred nasadenim, argumenty key=value: insert=40 delete=20 find=40 records=100000
+    // duration=60 (sekundy) verify=1000 (0 vypne kontrolu) blockSize=1024 seed=...
+    public static void main(String[] args) {
+        int insertWeight = 40;
+        int deleteWeight = 20;
+        int findWeight = 40;
+        int records = 100_000;
+        long durationSeconds = 60;
+        int verifyEvery = 1000;
+        int blockSize = 1024;
+        long seed = System.currentTimeMillis();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "insert" -> insertWeight = Integer.parseInt(parts[1]);
+                case "delete" -> deleteWeight = Integer.parseInt(parts[1]);
+                case "find" -> findWeight = Integer.parseInt(parts[1]);
+                case "records" -> records = Integer.parseInt(parts[1]);
+                case "duration" -> durationSeconds = Long.parseLong(parts[1]);
+                case "verify" -> verifyEvery = Integer.parseInt(parts[1]);
+                case "blockSize" -> blockSize = Integer.parseInt(parts[1]);
+                case "seed" -> seed = Long.parseLong(parts[1]);
+                default -> throw new IllegalArgumentException("Unknown parameter: " + arg);
+            }
+        }
+        System.out.println("Zataz " + insertWeight + "/" + deleteWeight + "/" + findWeight + " (insert/delete/find), "
+                + records + " zaznamov, " + durationSeconds + " s, seed: " + seed);
+
+        HeapFileBenchmark.deleteFiles(LOAD_FILE_NAME);
+        try (HeapFile<Osoba> heap = new HeapFile<>(LOAD_FILE_NAME, Osoba.class, blockSize)) {
+            StructureTester<Osoba> tester = new StructureTester<>(heap, seed);
+            Map<Operation, LatencyHistogram> latencies = tester.runLoad(insertWeight, deleteWeight, findWeight,
+                    records, durationSeconds * 1000, verifyEvery);
+            printLoadReport(latencies, durationSeconds * 1000);
+            System.out.println("Seed: " + seed + " OK, zaznamov: " + tester.getInsertedCount()
+                    + ", blokov: " + heap.getTotalBlocks());
         }
+        HeapFileBenchmark.deleteFiles(LOAD_FILE_NAME);
     }
 
     private void trimExpectedBlocks() {